@@ -0,0 +1,301 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class DismissUndoQueueTest extends TestCase {
+
+    private DismissUndoQueue queue;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        queue = new DismissUndoQueue();
+    }
+
+    public void testTakeAllReturnsPositionsByDescendingOrder() {
+        queue.add(new int[]{5, 2}, new int[]{0, 0}, null);
+        queue.add(new int[]{9}, new int[]{0}, null);
+        assertEquals(2, queue.getEntryCount());
+        assertTrue(queue.contains(2));
+        assertFalse(queue.contains(3));
+
+        assertEquals("[9, 5, 2]", Arrays.toString(queue.takeAll()));
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(2));
+    }
+
+    public void testTakeOldestShiftsTheOtherEntries() {
+        queue.add(new int[]{3, 1}, new int[]{0, 0}, null);
+        queue.add(new int[]{4, 8}, new int[]{0, 0}, null);
+
+        assertEquals("[3, 1]", Arrays.toString(queue.takeOldest()));
+
+        assertEquals(1, queue.getEntryCount());
+        // 4 and 8 once the items at 1 and 3 are removed
+        assertEquals("[2, 6]", Arrays.toString(queue.takeNewest()));
+    }
+
+    public void testTakeNewestReturnsItsStates() {
+        queue.add(new int[]{4, 2}, new int[]{1, 4}, null);
+        queue.add(new int[]{7}, new int[]{2}, null);
+
+        assertEquals("[2]", Arrays.toString(queue.getNewestStates()));
+        assertEquals("[7]", Arrays.toString(queue.takeNewest()));
+        assertEquals("[1, 4]", Arrays.toString(queue.getNewestStates()));
+        assertEquals("[4, 2]", Arrays.toString(queue.takeNewest()));
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testRemoveDropsRemovedPositionsAndEmptiedEntries() {
+        queue.add(new int[]{2}, new int[]{1}, null);
+        queue.add(new int[]{5, 6}, new int[]{2, 3}, null);
+        queue.add(new int[]{9}, new int[]{4}, null);
+
+        // Removes the items at 4 and 5
+        queue.remove(4, 2);
+        assertEquals(3, queue.getEntryCount());
+        // Removes the item at 2, and so the oldest entry
+        queue.remove(2, 1);
+        assertEquals(2, queue.getEntryCount());
+
+        assertEquals("[4]", Arrays.toString(queue.getNewestStates()));
+        assertEquals("[6]", Arrays.toString(queue.takeNewest()));
+        assertEquals("[3]", Arrays.toString(queue.getNewestStates()));
+        assertEquals("[3]", Arrays.toString(queue.takeNewest()));
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testInsertAndMoveShiftPositions() {
+        queue.add(new int[]{1, 5}, new int[]{0, 0}, null);
+
+        queue.insert(3, 2);
+        assertTrue(queue.contains(1));
+        assertTrue(queue.contains(7));
+
+        queue.move(7, 0);
+        assertEquals("[2, 0]", Arrays.toString(queue.takeNewest()));
+    }
+
+    public void testRemapIdsFollowsTheItems() {
+        IdAdapter adapter = new IdAdapter(10, 11, 12, 13, 14);
+        queue.add(new int[]{3, 1}, new int[]{1, 2}, new long[]{13, 11});
+        queue.add(new int[]{4}, new int[]{4}, new long[]{14});
+
+        // 11 moves to the end, 14 is removed, 20 is inserted first
+        adapter.ids = new long[]{20, 10, 12, 13, 11};
+        queue.remapIds(adapter);
+
+        assertEquals(1, queue.getEntryCount());
+        assertEquals("[1, 2]", Arrays.toString(queue.getNewestStates()));
+        assertEquals("[3, 4]", Arrays.toString(queue.takeNewest()));
+    }
+
+    public void testRemapIdsNeedsIdsForEveryEntry() {
+        IdAdapter adapter = new IdAdapter(10, 11, 12);
+        queue.add(new int[]{1}, new int[]{0}, new long[]{11});
+        queue.add(new int[]{2}, new int[]{0}, null);
+
+        adapter.ids = new long[]{11, 12};
+        queue.remapIds(adapter);
+
+        assertEquals("[2, 1]", Arrays.toString(queue.takeAll()));
+    }
+
+    public void testRandomOperationsMatchAListModel() {
+        Random random = new Random(42);
+        List<List<int[]>> model = new ArrayList<List<int[]>>();
+        for (int step = 0; step < 20000; step++) {
+            switch (random.nextInt(6)) {
+                case 0: {
+                    int count = random.nextInt(4) + 1;
+                    int[] positions = new int[count];
+                    int[] states = new int[count];
+                    List<int[]> entry = new ArrayList<int[]>();
+                    for (int i = 0; i < count; i++) {
+                        positions[i] = random.nextInt(50);
+                        states[i] = random.nextInt(8);
+                        entry.add(new int[]{positions[i], states[i]});
+                    }
+                    queue.add(positions, states, null);
+                    model.add(entry);
+                    break;
+                }
+                case 1: {
+                    int start = random.nextInt(50);
+                    int count = random.nextInt(5) + 1;
+                    queue.insert(start, count);
+                    for (List<int[]> entry : model) {
+                        for (int[] item : entry) {
+                            if (item[0] >= start) {
+                                item[0] += count;
+                            }
+                        }
+                    }
+                    break;
+                }
+                case 2: {
+                    int start = random.nextInt(50);
+                    int count = random.nextInt(5) + 1;
+                    queue.remove(start, count);
+                    for (int e = model.size() - 1; e >= 0; e--) {
+                        List<int[]> entry = model.get(e);
+                        for (int i = entry.size() - 1; i >= 0; i--) {
+                            int[] item = entry.get(i);
+                            if (item[0] >= start + count) {
+                                item[0] -= count;
+                            } else if (item[0] >= start) {
+                                entry.remove(i);
+                            }
+                        }
+                        if (entry.isEmpty()) {
+                            model.remove(e);
+                        }
+                    }
+                    break;
+                }
+                case 3: {
+                    int from = random.nextInt(50);
+                    int to = random.nextInt(50);
+                    queue.move(from, to);
+                    for (List<int[]> entry : model) {
+                        for (int[] item : entry) {
+                            if (item[0] == from) {
+                                item[0] = to;
+                            } else if (from < to && item[0] > from && item[0] <= to) {
+                                item[0]--;
+                            } else if (to < from && item[0] >= to && item[0] < from) {
+                                item[0]++;
+                            }
+                        }
+                    }
+                    break;
+                }
+                case 4: {
+                    if (model.isEmpty()) {
+                        break;
+                    }
+                    int[] taken = queue.takeOldest();
+                    List<int[]> oldest = model.remove(0);
+                    assertEquals(Arrays.toString(descending(oldest)), Arrays.toString(taken));
+                    for (List<int[]> entry : model) {
+                        for (int[] item : entry) {
+                            int removedBefore = 0;
+                            for (int[] removed : oldest) {
+                                if (removed[0] < item[0]) {
+                                    removedBefore++;
+                                }
+                            }
+                            item[0] -= removedBefore;
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    if (model.isEmpty()) {
+                        break;
+                    }
+                    List<int[]> newest = model.remove(model.size() - 1);
+                    int[] states = queue.getNewestStates();
+                    int[] positions = queue.takeNewest();
+                    assertEquals(newest.size(), positions.length);
+                    for (int i = 0; i < positions.length; i++) {
+                        assertEquals(newest.get(i)[0], positions[i]);
+                        assertEquals(newest.get(i)[1], states[i]);
+                    }
+                    break;
+                }
+            }
+            assertEquals(model.size(), queue.getEntryCount());
+            for (int position = 0; position < 80; position++) {
+                assertEquals("position " + position, modelContains(model, position), queue.contains(position));
+            }
+        }
+    }
+
+    private static int[] descending(List<int[]> entry) {
+        int[] positions = new int[entry.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = entry.get(i)[0];
+        }
+        Arrays.sort(positions);
+        for (int i = 0, j = positions.length - 1; i < j; i++, j--) {
+            int swap = positions[i];
+            positions[i] = positions[j];
+            positions[j] = swap;
+        }
+        return positions;
+    }
+
+    private static boolean modelContains(List<List<int[]>> model, int position) {
+        for (List<int[]> entry : model) {
+            for (int[] item : entry) {
+                if (item[0] == position) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adapter with stable ids, one item per id
+     */
+    static class IdAdapter extends BaseAdapter {
+
+        long[] ids;
+
+        IdAdapter(long... ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public int getCount() {
+            return ids.length;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return ids[position];
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return ids[position];
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return convertView;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongIntMapTest extends TestCase {
+
+    private LongIntMap map;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        map = new LongIntMap();
+    }
+
+    public void testGetReturnsZeroForAbsentKeys() {
+        assertEquals(0, map.get(42));
+        assertEquals(0, map.size());
+    }
+
+    public void testPutReplacesTheValue() {
+        map.put(7, 1);
+        map.put(7, 5);
+        assertEquals(5, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    public void testPuttingZeroRemovesTheKey() {
+        map.put(7, 1);
+        map.put(8, 2);
+        map.put(7, 0);
+        assertEquals(0, map.get(7));
+        assertEquals(2, map.get(8));
+        assertEquals(1, map.size());
+        map.put(9, 0);
+        assertEquals(1, map.size());
+    }
+
+    public void testKeysSurviveGrowth() {
+        for (long key = -500; key < 500; key++) {
+            map.put(key * 31, (int) key + 1000);
+        }
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() >= 2000);
+        for (long key = -500; key < 500; key++) {
+            assertEquals(key + 1000, map.get(key * 31));
+        }
+    }
+
+    public void testIterationVisitsEachKeyOnce() {
+        map.put(Long.MIN_VALUE, 1);
+        map.put(0, 2);
+        map.put(Long.MAX_VALUE, 3);
+        int sum = 0;
+        int count = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.valueAt(slot) != 0) {
+                assertEquals(map.valueAt(slot), map.get(map.keyAt(slot)));
+                sum += map.valueAt(slot);
+                count++;
+            }
+        }
+        assertEquals(3, count);
+        assertEquals(6, sum);
+    }
+
+    public void testClearRemovesAllKeys() {
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(1));
+        map.put(1, 3);
+        assertEquals(3, map.get(1));
+    }
+
+    public void testRandomOperationsMatchHashMap() {
+        // Few keys in a small table: long clusters, wrapping around the end, emptied by removals.
+        Random random = new Random(42);
+        Map<Long, Integer> model = new HashMap<Long, Integer>();
+        for (int step = 0; step < 20000; step++) {
+            long key = random.nextInt(40) * 16L;
+            int value = random.nextInt(3) == 0 ? 0 : random.nextInt(100) + 1;
+            map.put(key, value);
+            if (value == 0) {
+                model.remove(key);
+            } else {
+                model.put(key, value);
+            }
+            assertEquals(model.size(), map.size());
+            for (long k = 0; k < 40 * 16L; k += 16) {
+                Integer expected = model.get(k);
+                assertEquals("key " + k, expected != null ? expected : 0, map.get(k));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the store with the three List&lt;Boolean&gt; it replaced. Only logs the timings, under the
+ * SwipeStateStoreBenchmark tag: they depend on the device.
+ */
+public class SwipeStateStoreBenchmark extends TestCase {
+
+    private static final String TAG = "SwipeStateStoreBenchmark";
+
+    private static final int ROWS = 100000;
+    private static final int ROUNDS = 20;
+
+    public void testLookupAndBatchRemoval() {
+        List<Boolean> opened = new ArrayList<Boolean>();
+        List<Boolean> openedRight = new ArrayList<Boolean>();
+        List<Boolean> checked = new ArrayList<Boolean>();
+        SwipeStateStore store = new SwipeStateStore();
+        store.setSize(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            boolean value = i % 3 == 0;
+            opened.add(value);
+            openedRight.add(false);
+            checked.add(value);
+            store.setOpened(i, value);
+            store.setChecked(i, value);
+        }
+
+        // Array of 4 byte references per list against 3 bits per row.
+        Log.i(TAG, "memory: lists " + (3L * 4 * ROWS) + " bytes, store " + (3L * ((ROWS + 63) / 64) * 8)
+                + " bytes");
+
+        int sink = 0;
+        long listTime = Long.MAX_VALUE;
+        long storeTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROWS; i++) {
+                if (opened.get(i) && !openedRight.get(i) || checked.get(i)) {
+                    sink++;
+                }
+            }
+            listTime = Math.min(listTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROWS; i++) {
+                if (store.isOpened(i) && !store.isOpenedRight(i) || store.isChecked(i)) {
+                    sink++;
+                }
+            }
+            storeTime = Math.min(storeTime, System.nanoTime() - start);
+        }
+        Log.i(TAG, "lookup of " + ROWS + " rows: lists " + listTime / 1000 + " us, store "
+                + storeTime / 1000 + " us (" + sink + ")");
+
+        // Removal of every tenth row, as dismissSelected() with 10% of the rows selected.
+        int[] removed = new int[ROWS / 10];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = ROWS - 1 - i * 10;
+        }
+        long start = System.nanoTime();
+        for (int position : removed) {
+            opened.remove(position);
+            openedRight.remove(position);
+            checked.remove(position);
+        }
+        listTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        store.removePositions(removed);
+        storeTime = System.nanoTime() - start;
+        Log.i(TAG, "removal of " + removed.length + " rows: lists " + listTime / 1000 + " us, store "
+                + storeTime / 1000 + " us");
+        assertEquals(opened.size(), store.size());
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SwipeStateStoreTest extends TestCase {
+
+    private SwipeStateStore store;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        store = new SwipeStateStore();
+    }
+
+    public void testSetAndClearAcrossWordBoundaries() {
+        store.setSize(200);
+        int[] positions = {0, 62, 63, 64, 65, 127, 128, 191, 192, 199};
+        for (int position : positions) {
+            store.setChecked(position, true);
+            store.setOpened(position, true);
+            store.setOpenedRight(position, true);
+        }
+        for (int i = 0; i < 200; i++) {
+            boolean set = contains(positions, i);
+            assertEquals("checked " + i, set, store.isChecked(i));
+            assertEquals("opened " + i, set, store.isOpened(i));
+            assertEquals("openedRight " + i, set, store.isOpenedRight(i));
+        }
+        assertEquals(positions.length, store.getCheckedCount());
+        assertEquals(positions.length, store.getOpenedCount());
+
+        store.setChecked(63, false);
+        store.setChecked(64, false);
+        store.setOpened(128, false);
+        assertFalse(store.isChecked(63));
+        assertFalse(store.isChecked(64));
+        assertTrue(store.isChecked(62));
+        assertTrue(store.isChecked(65));
+        assertFalse(store.isOpened(128));
+        assertTrue(store.isOpened(127));
+        assertEquals(positions.length - 2, store.getCheckedCount());
+        assertEquals(positions.length - 1, store.getOpenedCount());
+    }
+
+    public void testOutOfRangePositionsReadAsUnset() {
+        store.setSize(10);
+        store.setChecked(10, true);
+        store.setOpened(-1, true);
+        assertFalse(store.isChecked(10));
+        assertFalse(store.isOpened(-1));
+        assertEquals(0, store.getCheckedCount());
+        assertEquals(0, store.getOpenedCount());
+    }
+
+    public void testNextCheckedSkipsEmptyWords() {
+        store.setSize(300);
+        store.setChecked(5, true);
+        store.setChecked(64, true);
+        store.setChecked(255, true);
+        assertEquals(5, store.nextChecked(0));
+        assertEquals(64, store.nextChecked(6));
+        assertEquals(255, store.nextChecked(65));
+        assertEquals(-1, store.nextChecked(256));
+    }
+
+    public void testInsertShiftsAcrossWordBoundaries() {
+        store.setSize(130);
+        store.setChecked(10, true);
+        store.setChecked(63, true);
+        store.setOpened(64, true);
+        store.setOpenedRight(129, true);
+
+        store.insert(20, 70);
+
+        assertEquals(200, store.size());
+        assertTrue(store.isChecked(10));
+        assertTrue(store.isChecked(133));
+        assertTrue(store.isOpened(134));
+        assertTrue(store.isOpenedRight(199));
+        for (int i = 20; i < 90; i++) {
+            assertFalse(store.isChecked(i) || store.isOpened(i) || store.isOpenedRight(i));
+        }
+        assertEquals(2, store.getCheckedCount());
+        assertEquals(1, store.getOpenedCount());
+        assertEquals(134, store.getOpenedPosition(0));
+    }
+
+    public void testRemoveShiftsAcrossWordBoundaries() {
+        store.setSize(200);
+        store.setChecked(10, true);
+        store.setChecked(70, true);
+        store.setOpened(150, true);
+        store.setOpenedRight(199, true);
+
+        store.remove(60, 70);
+
+        assertEquals(130, store.size());
+        assertTrue(store.isChecked(10));
+        assertFalse(store.isChecked(60));
+        assertTrue(store.isOpened(80));
+        assertTrue(store.isOpenedRight(129));
+        assertEquals(1, store.getCheckedCount());
+        assertEquals(1, store.getOpenedCount());
+        assertEquals(80, store.getOpenedPosition(0));
+    }
+
+    public void testShrinkingClearsTheRowsOverTheNewSize() {
+        store.setSize(200);
+        store.setChecked(100, true);
+        store.setOpened(150, true);
+        store.setChecked(10, true);
+
+        store.setSize(64);
+        store.setSize(200);
+
+        assertTrue(store.isChecked(10));
+        assertFalse(store.isChecked(100));
+        assertFalse(store.isOpened(150));
+        assertEquals(1, store.getCheckedCount());
+        assertEquals(0, store.getOpenedCount());
+    }
+
+    public void testMoveKeepsTheStatesOfTheRow() {
+        store.setSize(100);
+        store.setChecked(3, true);
+        store.setOpened(3, true);
+        store.setChecked(80, true);
+
+        store.move(3, 90);
+
+        assertTrue(store.isChecked(90));
+        assertTrue(store.isOpened(90));
+        assertTrue(store.isChecked(79));
+        assertFalse(store.isChecked(3));
+        assertEquals(2, store.getCheckedCount());
+    }
+
+    public void testRemovePositionsAcceptsUnsortedPositions() {
+        store.setSize(10);
+        store.setChecked(1, true);
+        store.setChecked(4, true);
+        store.setOpened(9, true);
+
+        store.removePositions(new int[]{3, 7, 0, 5});
+
+        assertEquals(6, store.size());
+        // 1, 2, 4, 6, 8, 9 are left
+        assertTrue(store.isChecked(0));
+        assertTrue(store.isChecked(2));
+        assertTrue(store.isOpened(5));
+        assertEquals(2, store.getCheckedCount());
+        assertEquals(5, store.getOpenedPosition(0));
+    }
+
+    public void testRemovePositionsIgnoresDuplicateAndOutOfRangePositions() {
+        store.setSize(10);
+        store.setChecked(2, true);
+        store.setChecked(6, true);
+
+        store.removePositions(new int[]{6, 2, 6, 2, -1, 10});
+
+        assertEquals(8, store.size());
+        assertEquals(0, store.getCheckedCount());
+        assertEquals(-1, store.nextChecked(0));
+    }
+
+    public void testRemovePositionsAcrossWordBoundaries() {
+        store.setSize(300);
+        store.setChecked(62, true);
+        store.setChecked(66, true);
+        store.setOpened(130, true);
+        store.setOpenedRight(299, true);
+
+        store.removePositions(new int[]{200, 129, 128, 127, 65, 64, 63, 0});
+
+        assertEquals(292, store.size());
+        assertTrue(store.isChecked(61));
+        assertTrue(store.isChecked(62));
+        assertTrue(store.isOpened(123));
+        assertTrue(store.isOpenedRight(291));
+        assertEquals(2, store.getCheckedCount());
+        assertEquals(123, store.getOpenedPosition(0));
+    }
+
+    public void testRandomOperationsMatchBooleanLists() {
+        Random random = new Random(42);
+        Model model = new Model();
+        for (int step = 0; step < 5000; step++) {
+            int size = store.size();
+            int position = size == 0 ? 0 : random.nextInt(size);
+            boolean value = random.nextBoolean();
+            switch (random.nextInt(7)) {
+                case 0:
+                    store.setChecked(position, value);
+                    if (size > 0) {
+                        model.checked.set(position, value);
+                    }
+                    break;
+                case 1:
+                    store.setOpened(position, value);
+                    if (size > 0) {
+                        model.opened.set(position, value);
+                    }
+                    break;
+                case 2:
+                    store.setOpenedRight(position, value);
+                    if (size > 0) {
+                        model.openedRight.set(position, value);
+                    }
+                    break;
+                case 3: {
+                    int count = random.nextInt(140);
+                    position = random.nextInt(size + 1);
+                    store.insert(position, count);
+                    model.insert(position, count);
+                    break;
+                }
+                case 4: {
+                    int count = random.nextInt(140);
+                    store.remove(position, count);
+                    model.remove(position, count);
+                    break;
+                }
+                case 5: {
+                    int[] positions = new int[random.nextInt(100)];
+                    for (int i = 0; i < positions.length; i++) {
+                        positions[i] = random.nextInt(size + 2) - 1;
+                    }
+                    store.removePositions(positions);
+                    model.removePositions(positions);
+                    break;
+                }
+                default: {
+                    int newSize = random.nextInt(400);
+                    store.setSize(newSize);
+                    model.setSize(newSize);
+                    break;
+                }
+            }
+            model.assertMatches(store);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The List&lt;Boolean&gt; states the store replaced
+     */
+    static class Model {
+
+        final List<Boolean> opened = new ArrayList<Boolean>();
+        final List<Boolean> openedRight = new ArrayList<Boolean>();
+        final List<Boolean> checked = new ArrayList<Boolean>();
+
+        void setSize(int size) {
+            while (opened.size() > size) {
+                remove(opened.size() - 1, 1);
+            }
+            while (opened.size() < size) {
+                insert(opened.size(), 1);
+            }
+        }
+
+        void insert(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                opened.add(position, false);
+                openedRight.add(position, false);
+                checked.add(position, false);
+            }
+        }
+
+        void remove(int position, int count) {
+            count = Math.min(count, opened.size() - position);
+            for (int i = 0; i < count; i++) {
+                opened.remove(position);
+                openedRight.remove(position);
+                checked.remove(position);
+            }
+        }
+
+        void removePositions(int[] positions) {
+            boolean[] removed = new boolean[opened.size()];
+            for (int position : positions) {
+                if (position >= 0 && position < removed.length) {
+                    removed[position] = true;
+                }
+            }
+            for (int i = removed.length - 1; i >= 0; i--) {
+                if (removed[i]) {
+                    remove(i, 1);
+                }
+            }
+        }
+
+        void assertMatches(SwipeStateStore store) {
+            assertEquals(opened.size(), store.size());
+            int checkedCount = 0;
+            int openedCount = 0;
+            for (int i = 0; i < opened.size(); i++) {
+                assertEquals("opened " + i, opened.get(i).booleanValue(), store.isOpened(i));
+                assertEquals("openedRight " + i, openedRight.get(i).booleanValue(), store.isOpenedRight(i));
+                assertEquals("checked " + i, checked.get(i).booleanValue(), store.isChecked(i));
+                checkedCount += checked.get(i) ? 1 : 0;
+                openedCount += opened.get(i) ? 1 : 0;
+            }
+            assertEquals(checkedCount, store.getCheckedCount());
+            assertEquals(openedCount, store.getOpenedCount());
+            for (int i = 0; i < store.getOpenedCount(); i++) {
+                assertTrue(store.isOpened(store.getOpenedPosition(i)));
+            }
+        }
+    }
+}
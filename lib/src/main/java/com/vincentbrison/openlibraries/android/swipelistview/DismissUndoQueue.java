@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.widget.Adapter;
+
+import java.util.Arrays;
+
+/**
+ * Dismissed positions waiting for their commit, grouped in entries which can be undone.
+ * The positions are adapter positions, the dismissed items are still in the adapter. The swipe states of each
+ * position are kept to be restored on undo. With stable ids, the item id of each position is kept too, so that the
+ * positions follow their items when the adapter changes.
+ */
+class DismissUndoQueue {
+
+    private int[] positions = new int[16];
+    private int[] states = new int[16];
+    private long[] ids = new long[16];
+    private int size;
+    // End in positions of each entry, the oldest first
+    private int[] entryEnds = new int[4];
+    private int entryCount;
+    // False once an entry was added without ids
+    private boolean stableIds = true;
+    private final LongIntMap idIndexes = new LongIntMap();
+
+    boolean isEmpty() {
+        return entryCount == 0;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @param position adapter position
+     * @return true if the position waits for its commit
+     */
+    boolean contains(int position) {
+        for (int i = 0; i < size; i++) {
+            if (positions[i] == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an entry
+     *
+     * @param dismissPositions dismissed positions
+     * @param dismissStates    swipe states of the dismissed positions
+     * @param dismissIds       item ids of the dismissed positions, null if the adapter has no stable ids
+     */
+    void add(int[] dismissPositions, int[] dismissStates, long[] dismissIds) {
+        if (isEmpty()) {
+            stableIds = true;
+        }
+        if (size + dismissPositions.length > positions.length) {
+            int length = Math.max(positions.length * 2, size + dismissPositions.length);
+            positions = Arrays.copyOf(positions, length);
+            states = Arrays.copyOf(states, length);
+            ids = Arrays.copyOf(ids, length);
+        }
+        System.arraycopy(dismissPositions, 0, positions, size, dismissPositions.length);
+        System.arraycopy(dismissStates, 0, states, size, dismissStates.length);
+        if (dismissIds != null) {
+            System.arraycopy(dismissIds, 0, ids, size, dismissIds.length);
+        } else {
+            stableIds = false;
+        }
+        size += dismissPositions.length;
+        if (entryCount == entryEnds.length) {
+            entryEnds = Arrays.copyOf(entryEnds, entryCount * 2);
+        }
+        entryEnds[entryCount++] = size;
+    }
+
+    /**
+     * Removes all the entries
+     *
+     * @return their positions, sorted by descending position
+     */
+    int[] takeAll() {
+        int[] taken = sortDescending(positions, 0, size);
+        size = 0;
+        entryCount = 0;
+        return taken;
+    }
+
+    /**
+     * Removes the oldest entry. The positions of the other entries are shifted as if the items of the oldest
+     * one were removed from the adapter.
+     *
+     * @return its positions, sorted by descending position
+     */
+    int[] takeOldest() {
+        int end = entryEnds[0];
+        int[] taken = sortDescending(positions, 0, end);
+        System.arraycopy(positions, end, positions, 0, size - end);
+        System.arraycopy(states, end, states, 0, size - end);
+        System.arraycopy(ids, end, ids, 0, size - end);
+        size -= end;
+        System.arraycopy(entryEnds, 1, entryEnds, 0, --entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entryEnds[i] -= end;
+        }
+        for (int i = 0; i < size; i++) {
+            int position = positions[i];
+            int removedBefore = 0;
+            // taken is sorted by descending position
+            for (int j = taken.length - 1; j >= 0 && taken[j] < position; j--) {
+                removedBefore++;
+            }
+            positions[i] = position - removedBefore;
+        }
+        return taken;
+    }
+
+    /**
+     * @return swipe states of the positions of the newest entry, in the order of {@link #takeNewest()}
+     */
+    int[] getNewestStates() {
+        int start = entryCount > 1 ? entryEnds[entryCount - 2] : 0;
+        return Arrays.copyOfRange(states, start, size);
+    }
+
+    /**
+     * Removes the newest entry
+     *
+     * @return its positions
+     */
+    int[] takeNewest() {
+        int start = entryCount > 1 ? entryEnds[entryCount - 2] : 0;
+        int[] taken = Arrays.copyOfRange(positions, start, size);
+        size = start;
+        entryCount--;
+        return taken;
+    }
+
+    /**
+     * Shifts the positions after items were inserted in the adapter
+     */
+    void insert(int positionStart, int itemCount) {
+        for (int i = 0; i < size; i++) {
+            if (positions[i] >= positionStart) {
+                positions[i] += itemCount;
+            }
+        }
+    }
+
+    /**
+     * Shifts the positions after items were removed from the adapter, and drops the removed ones
+     */
+    void remove(int positionStart, int itemCount) {
+        for (int i = 0; i < size; i++) {
+            int position = positions[i];
+            if (position >= positionStart + itemCount) {
+                positions[i] = position - itemCount;
+            } else if (position >= positionStart) {
+                positions[i] = -1;
+            }
+        }
+        dropRemoved();
+    }
+
+    /**
+     * Moves the positions to the current positions of their item ids in a single pass over the adapter, and drops
+     * the items no longer in it. Does nothing if an entry was added without ids.
+     *
+     * @param adapter adapter with stable ids
+     */
+    void remapIds(Adapter adapter) {
+        if (!stableIds || isEmpty()) {
+            return;
+        }
+        idIndexes.clear();
+        for (int i = 0; i < size; i++) {
+            idIndexes.put(ids[i], i + 1);
+            positions[i] = -1;
+        }
+        int remaining = size;
+        for (int position = 0, count = adapter.getCount(); position < count && remaining > 0; position++) {
+            int index = idIndexes.get(adapter.getItemId(position)) - 1;
+            if (index >= 0 && positions[index] < 0) {
+                positions[index] = position;
+                remaining--;
+            }
+        }
+        dropRemoved();
+    }
+
+    /**
+     * Drops the positions set to -1, and the entries left empty
+     */
+    private void dropRemoved() {
+        int write = 0;
+        int entry = 0;
+        for (int read = 0; read < size; read++) {
+            while (entry < entryCount && entryEnds[entry] == read) {
+                entryEnds[entry++] = write;
+            }
+            if (positions[read] >= 0) {
+                positions[write] = positions[read];
+                states[write] = states[read];
+                ids[write] = ids[read];
+                write++;
+            }
+        }
+        while (entry < entryCount) {
+            entryEnds[entry++] = write;
+        }
+        size = write;
+        int entries = 0;
+        int previousEnd = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (entryEnds[i] > previousEnd) {
+                previousEnd = entryEnds[i];
+                entryEnds[entries++] = previousEnd;
+            }
+        }
+        entryCount = entries;
+    }
+
+    /**
+     * Updates the positions after an item was moved in the adapter
+     */
+    void move(int fromPosition, int toPosition) {
+        for (int i = 0; i < size; i++) {
+            int position = positions[i];
+            if (position == fromPosition) {
+                positions[i] = toPosition;
+            } else if (fromPosition < toPosition && position > fromPosition && position <= toPosition) {
+                positions[i] = position - 1;
+            } else if (toPosition < fromPosition && position >= toPosition && position < fromPosition) {
+                positions[i] = position + 1;
+            }
+        }
+    }
+
+    private static int[] sortDescending(int[] values, int from, int to) {
+        int[] sorted = Arrays.copyOfRange(values, from, to);
+        Arrays.sort(sorted);
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            int swap = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = swap;
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Counts the frames rendered and dropped while started, with Choreographer frame callbacks
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameCounter implements Choreographer.FrameCallback {
+
+    private final long frameIntervalNanos;
+    private boolean running;
+    private long lastFrameTimeNanos;
+    private int frames;
+    private int droppedFrames;
+
+    /**
+     * @param frameIntervalNanos refresh interval of the display
+     */
+    FrameCounter(long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    void start() {
+        if (!running) {
+            running = true;
+            lastFrameTimeNanos = 0;
+            frames = 0;
+            droppedFrames = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        if (running) {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    int getFrames() {
+        return frames;
+    }
+
+    int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameTimeNanos != 0) {
+            frames++;
+            // Rounded, a late frame within half an interval is not dropped.
+            long skipped = (frameTimeNanos - lastFrameTimeNanos + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (skipped > 0) {
+                droppedFrames += skipped;
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
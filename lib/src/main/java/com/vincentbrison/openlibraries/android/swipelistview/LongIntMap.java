@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+/**
+ * Open addressing map from long keys to int values, without boxing.
+ * 0 is the default value: putting 0 removes the key, and empty slots hold 0.
+ */
+class LongIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return number of keys with a non zero value
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key key
+     * @return value of the key, 0 if absent
+     */
+    int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * @param key   key
+     * @param value value, 0 to remove the key
+     */
+    void put(long key, int value) {
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                if (value != 0) {
+                    values[slot] = value;
+                } else {
+                    removeSlot(slot);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (value == 0) {
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes all keys
+     */
+    void clear() {
+        if (size > 0) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = 0;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * @return number of slots, to iterate with {@link #keyAt(int)} and {@link #valueAt(int)}
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @return value at slot, 0 if the slot is empty
+     */
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Removes the entry at slot and moves back the following entries of the cluster.
+     */
+    private void removeSlot(int slot) {
+        values[slot] = 0;
+        size--;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (values[next] != 0) {
+            int home = slot(keys[next]);
+            // Move the entry if its home slot is not between the hole and its current slot.
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = 0;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Animations with the platform property animations, without the nineoldandroids proxies
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+class NativeSwipeAnimationBackend extends SwipeAnimationBackend {
+
+    @Override
+    float getX(View view) {
+        return view.getX();
+    }
+
+    @Override
+    void setTranslationX(View view, float value) {
+        view.setTranslationX(value);
+    }
+
+    @Override
+    void setTranslationY(View view, float value) {
+        view.setTranslationY(value);
+    }
+
+    @Override
+    float getAlpha(View view) {
+        return view.getAlpha();
+    }
+
+    @Override
+    void setAlpha(View view, float value) {
+        view.setAlpha(value);
+    }
+
+    @Override
+    ViewAnimation createViewAnimation(View view, AnimationListener listener) {
+        return new NativeViewAnimation(view, listener);
+    }
+
+    @Override
+    Ticker createTicker(TickListener listener) {
+        return new NativeTicker(listener);
+    }
+
+    private static class NativeViewAnimation extends ViewAnimation {
+        private final ViewPropertyAnimator animator;
+        private final AnimatorListenerAdapter listener;
+
+        NativeViewAnimation(View view, final AnimationListener listener) {
+            animator = view.animate();
+            this.listener = new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    listener.onAnimationEnd();
+                }
+            };
+        }
+
+        @Override
+        ViewAnimation translationX(float value) {
+            animator.translationX(value);
+            return this;
+        }
+
+        @Override
+        ViewAnimation alpha(float value) {
+            animator.alpha(value);
+            return this;
+        }
+
+        @Override
+        void start(long duration) {
+            animator.setDuration(duration).setListener(listener);
+        }
+    }
+
+    private static class NativeTicker extends Ticker {
+        private final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+
+        NativeTicker(final TickListener listener) {
+            animator.setInterpolator(new LinearInterpolator());
+            animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator valueAnimator) {
+                    listener.onTick(valueAnimator.getCurrentPlayTime());
+                }
+            });
+            animator.addListener(new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    listener.onTickerEnd();
+                }
+            });
+        }
+
+        @Override
+        void start(long duration) {
+            animator.setDuration(duration);
+            animator.start();
+        }
+
+        @Override
+        long getDuration() {
+            return animator.getDuration();
+        }
+
+        @Override
+        void setDuration(long duration) {
+            animator.setDuration(duration);
+        }
+
+        @Override
+        long getPlayTime() {
+            return animator.getCurrentPlayTime();
+        }
+    }
+}
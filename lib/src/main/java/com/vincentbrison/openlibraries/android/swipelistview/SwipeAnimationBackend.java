@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Animates the views of the SwipeListView.
+ * <p/>
+ * Devices with the platform property animations (API 12) use them directly, older ones go through nineoldandroids.
+ */
+abstract class SwipeAnimationBackend {
+
+    private static final SwipeAnimationBackend INSTANCE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1
+            ? new NativeSwipeAnimationBackend() : new CompatSwipeAnimationBackend();
+
+    /**
+     * @return backend of this device
+     */
+    static SwipeAnimationBackend get() {
+        return INSTANCE;
+    }
+
+    abstract float getX(View view);
+
+    abstract void setTranslationX(View view, float value);
+
+    abstract void setTranslationY(View view, float value);
+
+    abstract float getAlpha(View view);
+
+    abstract void setAlpha(View view, float value);
+
+    /**
+     * @param view     animated view
+     * @param listener notified at the end of each animation of the view
+     * @return animation of the view, to keep with it
+     */
+    abstract ViewAnimation createViewAnimation(View view, AnimationListener listener);
+
+    /**
+     * @param listener notified on each frame and at the end
+     * @return ticker, to reuse
+     */
+    abstract Ticker createTicker(TickListener listener);
+
+    interface AnimationListener {
+        /**
+         * Called when the animation ends or is replaced by a new animation of the view
+         */
+        void onAnimationEnd();
+    }
+
+    interface TickListener {
+        /**
+         * @param playTime time since start, in milliseconds
+         */
+        void onTick(long playTime);
+
+        void onTickerEnd();
+    }
+
+    /**
+     * Animation of the properties of a view. Request the properties first, which ends the running animation,
+     * then {@link #start(long)}.
+     */
+    abstract static class ViewAnimation {
+
+        abstract ViewAnimation translationX(float value);
+
+        abstract ViewAnimation alpha(float value);
+
+        abstract void start(long duration);
+    }
+
+    /**
+     * Frame callbacks for a duration, which can be extended while running
+     */
+    abstract static class Ticker {
+
+        abstract void start(long duration);
+
+        abstract long getDuration();
+
+        abstract void setDuration(long duration);
+
+        abstract long getPlayTime();
+    }
+}
@@ -37,6 +37,8 @@ package com.vincentbrison.openlibraries.android.swipelistview;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.database.DataSetObserver;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.v4.view.MotionEventCompat;
 import android.support.v4.view.ViewConfigurationCompat;
 import android.util.AttributeSet;
@@ -100,6 +102,106 @@ public class SwipeListView extends ListView {
      */
     public final static int SWIPE_ACTION_NONE = 3;
 
+    /**
+     * Dismissed cells collapse by animating their height, with a layout pass per frame
+     */
+    public final static int SWIPE_DISMISS_COLLAPSE_HEIGHT = 0;
+
+    /**
+     * Cells below a dismissed cell are translated over it, with a single layout pass at the end
+     */
+    public final static int SWIPE_DISMISS_COLLAPSE_TRANSLATE = 1;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onOpened(int, boolean)}
+     */
+    public final static int EVENT_OPENED = 1 << 0;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onClosed(int, boolean)}
+     */
+    public final static int EVENT_CLOSED = 1 << 1;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onListChanged()}
+     */
+    public final static int EVENT_LIST_CHANGED = 1 << 2;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onMove(int, float)}
+     */
+    public final static int EVENT_MOVE = 1 << 3;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onStartOpen(int, int, boolean)}
+     */
+    public final static int EVENT_START_OPEN = 1 << 4;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onStartClose(int, boolean)}
+     */
+    public final static int EVENT_START_CLOSE = 1 << 5;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onClickFrontView(int)}
+     */
+    public final static int EVENT_CLICK_FRONT_VIEW = 1 << 6;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onClickBackView(int)}
+     */
+    public final static int EVENT_CLICK_BACK_VIEW = 1 << 7;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onDismiss(int[])}
+     */
+    public final static int EVENT_DISMISS = 1 << 8;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onChangeSwipeMode(int)}
+     */
+    public final static int EVENT_CHANGE_SWIPE_MODE = 1 << 9;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onChoiceChanged(int, boolean)}
+     */
+    public final static int EVENT_CHOICE_CHANGED = 1 << 10;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onChoiceStarted()}
+     */
+    public final static int EVENT_CHOICE_STARTED = 1 << 11;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onChoiceEnded()}
+     */
+    public final static int EVENT_CHOICE_ENDED = 1 << 12;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onFirstListItem()}
+     */
+    public final static int EVENT_FIRST_LIST_ITEM = 1 << 13;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onLastListItem()}
+     */
+    public final static int EVENT_LAST_LIST_ITEM = 1 << 14;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onScrollStateChanged(android.widget.AbsListView, int)}
+     */
+    public final static int EVENT_SCROLL_STATE_CHANGED = 1 << 15;
+
+    /**
+     * Listener event: {@link SwipeListViewListener#onScroll(android.widget.AbsListView, int, int, int)}
+     */
+    public final static int EVENT_SCROLL = 1 << 16;
+
+    /**
+     * All listener events
+     */
+    public final static int EVENT_ALL = (1 << 17) - 1;
+
     /**
      * Default ids for front view
      */
@@ -135,10 +237,36 @@ public class SwipeListView extends ListView {
     int swipeBackView = 0;
 
     /**
-     * Internal listener for common swipe events
+     * Callback to visit positions without allocation
+     */
+    public interface PositionCallback {
+
+        /**
+         * @param position position in list
+         */
+        void onPosition(int position);
+    }
+
+    private static final SwipeListViewListener[] NO_LISTENERS = new SwipeListViewListener[0];
+    private static final int[] NO_EVENTS = new int[0];
+
+    /**
+     * Listener set with {@link #setSwipeListViewListener(SwipeListViewListener)}
      */
     private SwipeListViewListener swipeListViewListener;
 
+    /**
+     * Registered listeners and the events of each one. The arrays are replaced, never modified, so a dispatch
+     * loop is not disturbed by a listener added or removed by a callback.
+     */
+    private SwipeListViewListener[] listeners = NO_LISTENERS;
+    private int[] listenerEvents = NO_EVENTS;
+
+    /**
+     * Events of all the registered listeners
+     */
+    private int listenedEvents;
+
     /**
      * Internal touch listener
      */
@@ -184,6 +312,13 @@ public class SwipeListView extends ListView {
         int swipeMode = SWIPE_MODE_BOTH;
         boolean swipeOpenOnLongPress = true;
         boolean swipeCloseAllItemsWhenMoveList = true;
+        int swipeMaxOpenedItems = 0;
+        boolean swipeCoalesceMoves = false;
+        boolean swipeUseHardwareLayers = false;
+        boolean swipeHardwareLayerBackView = false;
+        int swipeDismissCollapse = SWIPE_DISMISS_COLLAPSE_HEIGHT;
+        int swipeUndoMaxPending = 0;
+        int swipeUndoTimeout = 0;
         long swipeAnimationTime = 0;
         float swipeOffsetLeft = 0;
         float swipeOffsetRight = 0;
@@ -203,6 +338,13 @@ public class SwipeListView extends ListView {
             swipeOpenOnLongPress = styled.getBoolean(R.styleable.SwipeListView_swipeOpenOnLongPress, true);
             swipeAnimationTime = styled.getInteger(R.styleable.SwipeListView_swipeAnimationTime, 0);
             swipeCloseAllItemsWhenMoveList = styled.getBoolean(R.styleable.SwipeListView_swipeCloseAllItemsWhenMoveList, true);
+            swipeMaxOpenedItems = styled.getInteger(R.styleable.SwipeListView_swipeMaxOpenedItems, 0);
+            swipeCoalesceMoves = styled.getBoolean(R.styleable.SwipeListView_swipeCoalesceMoves, false);
+            swipeUseHardwareLayers = styled.getBoolean(R.styleable.SwipeListView_swipeUseHardwareLayers, false);
+            swipeHardwareLayerBackView = styled.getBoolean(R.styleable.SwipeListView_swipeHardwareLayerBackView, false);
+            swipeDismissCollapse = styled.getInt(R.styleable.SwipeListView_swipeDismissCollapse, SWIPE_DISMISS_COLLAPSE_HEIGHT);
+            swipeUndoMaxPending = styled.getInteger(R.styleable.SwipeListView_swipeUndoMaxPending, 0);
+            swipeUndoTimeout = styled.getInteger(R.styleable.SwipeListView_swipeUndoTimeout, 0);
             swipeDrawableChecked = styled.getResourceId(R.styleable.SwipeListView_swipeDrawableChecked, 0);
             swipeDrawableUnchecked = styled.getResourceId(R.styleable.SwipeListView_swipeDrawableUnchecked, 0);
             swipeFrontView = styled.getResourceId(R.styleable.SwipeListView_swipeFrontView, 0);
@@ -231,6 +373,15 @@ public class SwipeListView extends ListView {
         touchListener.setSwipeActionRight(swipeActionRight);
         touchListener.setSwipeMode(swipeMode);
         touchListener.setSwipeClosesAllItemsWhenListMoves(swipeCloseAllItemsWhenMoveList);
+        touchListener.setSwipeMaxOpenedItems(swipeMaxOpenedItems);
+        touchListener.setSwipeCoalesceMoves(swipeCoalesceMoves);
+        touchListener.setSwipeUseHardwareLayers(swipeUseHardwareLayers);
+        touchListener.setSwipeHardwareLayerBackView(swipeHardwareLayerBackView);
+        touchListener.setSwipeDismissCollapse(swipeDismissCollapse);
+        touchListener.setSwipeUndoMaxPending(swipeUndoMaxPending);
+        if (swipeUndoTimeout > 0) {
+            touchListener.setSwipeUndoTimeout(swipeUndoTimeout);
+        }
         touchListener.setSwipeOpenOnLongPress(swipeOpenOnLongPress);
         touchListener.setSwipeDrawableChecked(swipeDrawableChecked);
         touchListener.setSwipeDrawableUnchecked(swipeDrawableUnchecked);
@@ -245,15 +396,24 @@ public class SwipeListView extends ListView {
      * @param position    position in list
      */
     public void recycle(View convertView, int position) {
-        touchListener.reloadChoiceStateInView(convertView.findViewById(swipeFrontView), position);
-        touchListener.reloadSwipeStateInView(convertView.findViewById(swipeFrontView), position);
-
-        // Clean pressed state (if dismiss is fire from a cell, to this cell, with a press drawable, in a swipelistview
-        // when this cell will be recycle it will still have his pressed state. This ensure the pressed state is
-        // cleaned.
-        for(int j=0; j<((ViewGroup)convertView).getChildCount(); ++j) {
-            View nextChild = ((ViewGroup)convertView).getChildAt(j);
-            nextChild.setPressed(false);
+        boolean traced = SwipeTrace.begin("SwipeListView.recycle");
+        try {
+            View frontView = touchListener.getFrontView(convertView);
+            touchListener.reloadChoiceStateInView(frontView, position);
+            touchListener.reloadSwipeStateInView(frontView, position);
+            touchListener.reloadDismissStateInView(convertView, position);
+
+            // Clean pressed state (if dismiss is fire from a cell, to this cell, with a press drawable, in a swipelistview
+            // when this cell will be recycle it will still have his pressed state. This ensure the pressed state is
+            // cleaned.
+            for(int j=0; j<((ViewGroup)convertView).getChildCount(); ++j) {
+                View nextChild = ((ViewGroup)convertView).getChildAt(j);
+                nextChild.setPressed(false);
+            }
+        } finally {
+            if (traced) {
+                SwipeTrace.end();
+            }
         }
     }
 
@@ -276,6 +436,38 @@ public class SwipeListView extends ListView {
         return touchListener.getPositionsSelected();
     }
 
+    /**
+     * Get positions selected, without allocation. Size into with {@link #getCountSelected()} to get all of them.
+     *
+     * @param into array to fill with the positions, by ascending order
+     * @return number of positions written in into
+     */
+    public int getCheckedPositions(int[] into) {
+        return touchListener.getCheckedPositions(into);
+    }
+
+    /**
+     * Get the first position selected at or after fromPosition. Iterate over the selection with
+     * {@code for (int p = nextCheckedPosition(0); p >= 0; p = nextCheckedPosition(p + 1))}.
+     *
+     * @param fromPosition first position to look at
+     * @return position selected, or -1 if there is none
+     */
+    public int nextCheckedPosition(int fromPosition) {
+        return touchListener.nextCheckedPosition(fromPosition);
+    }
+
+    /**
+     * Calls callback for each position selected, by ascending order
+     *
+     * @param callback callback
+     */
+    public void forEachSelected(PositionCallback callback) {
+        for (int position = nextCheckedPosition(0); position >= 0; position = nextCheckedPosition(position + 1)) {
+            callback.onPosition(position);
+        }
+    }
+
     /**
      * Count selected
      *
@@ -311,20 +503,89 @@ public class SwipeListView extends ListView {
         });
     }
 
+    /**
+     * Notifies that items were inserted in the adapter, so that the opened and checked states and the dismisses
+     * waiting for undo of the following items are shifted along with them. Call it before notifying the adapter
+     * observers. Not needed when the adapter has stable ids, they are then moved by item id.
+     *
+     * @param positionStart position of the first inserted item
+     * @param itemCount     number of inserted items
+     */
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        touchListener.insertItems(positionStart, itemCount);
+    }
+
+    /**
+     * Notifies that items were removed from the adapter, so that the opened and checked states and the dismisses
+     * waiting for undo of the following items are shifted along with them. Call it before notifying the adapter
+     * observers. Not needed when the adapter has stable ids, they are then moved by item id.
+     * Do not call it for the items removed in {@link SwipeListViewListener#onDismiss(int[])}: their states are
+     * already removed when onDismiss is called.
+     *
+     * @param positionStart position of the first removed item
+     * @param itemCount     number of removed items
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        touchListener.removeItems(positionStart, itemCount);
+    }
+
+    /**
+     * Notifies that an item was moved in the adapter, so that its opened and checked states and its dismiss
+     * waiting for undo follow it. Call it before notifying the adapter observers.
+     * Not needed when the adapter has stable ids, they are then moved by item id.
+     *
+     * @param fromPosition previous position of the item
+     * @param toPosition   new position of the item
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        touchListener.moveItem(fromPosition, toPosition);
+    }
+
+    /**
+     * @see android.widget.AbsListView#onDetachedFromWindow()
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        touchListener.recycleVelocityTracker();
+        touchListener.stopSwipeMetrics();
+        touchListener.commitDismisses();
+    }
+
+    /**
+     * @see android.widget.AbsListView#onSaveInstanceState()
+     */
+    @Override
+    public Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        touchListener.saveState(state);
+        return state;
+    }
+
+    /**
+     * @see android.widget.AbsListView#onRestoreInstanceState(android.os.Parcelable)
+     */
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        touchListener.restoreState(savedState);
+    }
+
     /**
      * Dismiss item
      *
      * @param position Position that you want open
      */
     public void dismiss(int position) {
-        int height = touchListener.dismiss(position);
-        if (height > 0) {
-            touchListener.handlerPendingDismisses(height);
-        } else {
-            int[] dismissPositions = new int[1];
-            dismissPositions[0] = position;
-            onDismiss(dismissPositions);
-            touchListener.resetPendingDismisses();
+        touchListener.dismiss(position);
+        if (!touchListener.isDismissAnimating()) {
+            // Nothing to collapse, the collapse animation commits the dismisses otherwise.
+            touchListener.removePendingDismisses();
         }
     }
 
@@ -332,22 +593,11 @@ public class SwipeListView extends ListView {
      * Dismiss items selected
      */
     public void dismissSelected() {
-        List<Integer> list = touchListener.getPositionsSelected();
-        int[] dismissPositions = new int[list.size()];
-        int height = 0;
-        for (int i = 0; i < list.size(); i++) {
-            int position = list.get(i);
-            dismissPositions[i] = position;
-            int auxHeight = touchListener.dismiss(position);
-            if (auxHeight > 0) {
-                height = auxHeight;
-            }
+        for (int position = nextCheckedPosition(0); position >= 0; position = nextCheckedPosition(position + 1)) {
+            touchListener.dismiss(position);
         }
-        if (height > 0) {
-            touchListener.handlerPendingDismisses(height);
-        } else {
-            onDismiss(dismissPositions);
-            touchListener.resetPendingDismisses();
+        if (!touchListener.isDismissAnimating()) {
+            touchListener.removePendingDismisses();
         }
         touchListener.returnOldActions();
     }
@@ -376,8 +626,14 @@ public class SwipeListView extends ListView {
      * @param reverseSortedPositions All dismissed positions
      */
     protected void onDismiss(int[] reverseSortedPositions) {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onDismiss(reverseSortedPositions);
+        if ((listenedEvents & EVENT_DISMISS) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_DISMISS) != 0) {
+                    listeners[i].onDismiss(reverseSortedPositions);
+                }
+            }
         }
     }
 
@@ -389,8 +645,14 @@ public class SwipeListView extends ListView {
      * @param right    to right
      */
     protected void onStartOpen(int position, int action, boolean right) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onStartOpen(position, action, right);
+        if ((listenedEvents & EVENT_START_OPEN) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_START_OPEN) != 0) {
+                    listeners[i].onStartOpen(position, action, right);
+                }
+            }
         }
     }
 
@@ -401,8 +663,14 @@ public class SwipeListView extends ListView {
      * @param right
      */
     protected void onStartClose(int position, boolean right) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onStartClose(position, right);
+        if ((listenedEvents & EVENT_START_CLOSE) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_START_CLOSE) != 0) {
+                    listeners[i].onStartClose(position, right);
+                }
+            }
         }
     }
 
@@ -412,8 +680,14 @@ public class SwipeListView extends ListView {
      * @param position item clicked
      */
     protected void onClickFrontView(int position) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onClickFrontView(position);
+        if ((listenedEvents & EVENT_CLICK_FRONT_VIEW) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CLICK_FRONT_VIEW) != 0) {
+                    listeners[i].onClickFrontView(position);
+                }
+            }
         }
     }
 
@@ -423,8 +697,14 @@ public class SwipeListView extends ListView {
      * @param position back item clicked
      */
     protected void onClickBackView(int position) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onClickBackView(position);
+        if ((listenedEvents & EVENT_CLICK_BACK_VIEW) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CLICK_BACK_VIEW) != 0) {
+                    listeners[i].onClickBackView(position);
+                }
+            }
         }
     }
 
@@ -435,8 +715,14 @@ public class SwipeListView extends ListView {
      * @param toRight  If should be opened toward the right
      */
     protected void onOpened(int position, boolean toRight) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onOpened(position, toRight);
+        if ((listenedEvents & EVENT_OPENED) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_OPENED) != 0) {
+                    listeners[i].onOpened(position, toRight);
+                }
+            }
         }
     }
 
@@ -447,8 +733,14 @@ public class SwipeListView extends ListView {
      * @param fromRight If open from right
      */
     protected void onClosed(int position, boolean fromRight) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onClosed(position, fromRight);
+        if ((listenedEvents & EVENT_CLOSED) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CLOSED) != 0) {
+                    listeners[i].onClosed(position, fromRight);
+                }
+            }
         }
     }
 
@@ -459,8 +751,14 @@ public class SwipeListView extends ListView {
      * @param selected if item is selected or not
      */
     protected void onChoiceChanged(int position, boolean selected) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onChoiceChanged(position, selected);
+        if ((listenedEvents & EVENT_CHOICE_CHANGED) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CHOICE_CHANGED) != 0) {
+                    listeners[i].onChoiceChanged(position, selected);
+                }
+            }
         }
     }
 
@@ -468,8 +766,14 @@ public class SwipeListView extends ListView {
      * User start choice items
      */
     protected void onChoiceStarted() {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onChoiceStarted();
+        if ((listenedEvents & EVENT_CHOICE_STARTED) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CHOICE_STARTED) != 0) {
+                    listeners[i].onChoiceStarted();
+                }
+            }
         }
     }
 
@@ -477,8 +781,14 @@ public class SwipeListView extends ListView {
      * User end choice items
      */
     protected void onChoiceEnded() {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onChoiceEnded();
+        if ((listenedEvents & EVENT_CHOICE_ENDED) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CHOICE_ENDED) != 0) {
+                    listeners[i].onChoiceEnded();
+                }
+            }
         }
     }
 
@@ -486,8 +796,14 @@ public class SwipeListView extends ListView {
      * User is in first item of list
      */
     protected void onFirstListItem() {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onFirstListItem();
+        if ((listenedEvents & EVENT_FIRST_LIST_ITEM) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_FIRST_LIST_ITEM) != 0) {
+                    listeners[i].onFirstListItem();
+                }
+            }
         }
     }
 
@@ -495,8 +811,14 @@ public class SwipeListView extends ListView {
      * User is in last item of list
      */
     protected void onLastListItem() {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onLastListItem();
+        if ((listenedEvents & EVENT_LAST_LIST_ITEM) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_LAST_LIST_ITEM) != 0) {
+                    listeners[i].onLastListItem();
+                }
+            }
         }
     }
 
@@ -504,8 +826,14 @@ public class SwipeListView extends ListView {
      * Notifies onListChanged
      */
     protected void onListChanged() {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onListChanged();
+        if ((listenedEvents & EVENT_LIST_CHANGED) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_LIST_CHANGED) != 0) {
+                    listeners[i].onListChanged();
+                }
+            }
         }
     }
 
@@ -516,26 +844,53 @@ public class SwipeListView extends ListView {
      * @param x        Current position
      */
     protected void onMove(int position, float x) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            swipeListViewListener.onMove(position, x);
+        if ((listenedEvents & EVENT_MOVE) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_MOVE) != 0) {
+                    listeners[i].onMove(position, x);
+                }
+            }
         }
     }
 
     protected void onScrollStateChanged(AbsListView absListView, int scrollState) {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onScrollStateChanged(absListView, scrollState);
+        if ((listenedEvents & EVENT_SCROLL_STATE_CHANGED) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_SCROLL_STATE_CHANGED) != 0) {
+                    listeners[i].onScrollStateChanged(absListView, scrollState);
+                }
+            }
         }
     }
 
     protected void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-        if (swipeListViewListener != null) {
-            swipeListViewListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        if ((listenedEvents & EVENT_SCROLL) != 0) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_SCROLL) != 0) {
+                    listeners[i].onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+                }
+            }
         }
     }
 
     protected int changeSwipeMode(int position) {
-        if (swipeListViewListener != null && position != ListView.INVALID_POSITION) {
-            return swipeListViewListener.onChangeSwipeMode(position);
+        if ((listenedEvents & EVENT_CHANGE_SWIPE_MODE) != 0 && position != ListView.INVALID_POSITION) {
+            SwipeListViewListener[] listeners = this.listeners;
+            int[] listenerEvents = this.listenerEvents;
+            for (int i = 0; i < listeners.length; i++) {
+                if ((listenerEvents[i] & EVENT_CHANGE_SWIPE_MODE) != 0) {
+                    int swipeMode = listeners[i].onChangeSwipeMode(position);
+                    if (swipeMode != SWIPE_MODE_DEFAULT) {
+                        return swipeMode;
+                    }
+                }
+            }
         }
         return SWIPE_MODE_DEFAULT;
     }
@@ -546,7 +901,85 @@ public class SwipeListView extends ListView {
      * @param swipeListViewListener Listener
      */
     public void setSwipeListViewListener(SwipeListViewListener swipeListViewListener) {
+        if (this.swipeListViewListener != null) {
+            removeSwipeListViewListener(this.swipeListViewListener);
+        }
         this.swipeListViewListener = swipeListViewListener;
+        if (swipeListViewListener != null) {
+            addSwipeListViewListener(swipeListViewListener, EVENT_ALL);
+        }
+    }
+
+    /**
+     * Adds a listener, notified of the given events only. Events without interested listener are not
+     * dispatched, so skip {@link #EVENT_MOVE} and {@link #EVENT_SCROLL} unless needed.
+     *
+     * @param listener Listener
+     * @param events   events to notify, as {@link #EVENT_OPENED} | {@link #EVENT_CLOSED}
+     */
+    public void addSwipeListViewListener(SwipeListViewListener listener, int events) {
+        int index = indexOfListener(listener);
+        if (index < 0) {
+            index = listeners.length;
+            SwipeListViewListener[] newListeners = new SwipeListViewListener[index + 1];
+            int[] newEvents = new int[index + 1];
+            System.arraycopy(listeners, 0, newListeners, 0, index);
+            System.arraycopy(listenerEvents, 0, newEvents, 0, index);
+            newListeners[index] = listener;
+            listeners = newListeners;
+            listenerEvents = newEvents;
+        } else {
+            listenerEvents = listenerEvents.clone();
+        }
+        listenerEvents[index] = events;
+        updateListenedEvents();
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener Listener
+     */
+    public void removeSwipeListViewListener(SwipeListViewListener listener) {
+        int index = indexOfListener(listener);
+        if (index < 0) {
+            return;
+        }
+        if (listener == swipeListViewListener) {
+            swipeListViewListener = null;
+        }
+        int count = listeners.length - 1;
+        if (count == 0) {
+            listeners = NO_LISTENERS;
+            listenerEvents = NO_EVENTS;
+        } else {
+            SwipeListViewListener[] newListeners = new SwipeListViewListener[count];
+            int[] newEvents = new int[count];
+            System.arraycopy(listeners, 0, newListeners, 0, index);
+            System.arraycopy(listeners, index + 1, newListeners, index, count - index);
+            System.arraycopy(listenerEvents, 0, newEvents, 0, index);
+            System.arraycopy(listenerEvents, index + 1, newEvents, index, count - index);
+            listeners = newListeners;
+            listenerEvents = newEvents;
+        }
+        updateListenedEvents();
+    }
+
+    private int indexOfListener(SwipeListViewListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void updateListenedEvents() {
+        int events = 0;
+        for (int listenerEvent : listenerEvents) {
+            events |= listenerEvent;
+        }
+        listenedEvents = events;
     }
 
     /**
@@ -583,6 +1016,106 @@ public class SwipeListView extends ListView {
         touchListener.setSwipeClosesAllItemsWhenListMoves(swipeCloseAllItemsWhenMoveList);
     }
 
+    /**
+     * Set the maximum number of items opened at the same time. When an item opens over this limit, the item
+     * opened first is closed.
+     *
+     * @param swipeMaxOpenedItems maximum number of opened items, 0 for no limit
+     */
+    public void setSwipeMaxOpenedItems(int swipeMaxOpenedItems) {
+        touchListener.setSwipeMaxOpenedItems(swipeMaxOpenedItems);
+    }
+
+    /**
+     * Set if the moves of a swiped item are applied once per frame instead of once per touch event. It saves
+     * view updates and onMove calls on devices reporting touch events faster than the display refresh rate.
+     *
+     * @param swipeCoalesceMoves
+     */
+    public void setSwipeCoalesceMoves(boolean swipeCoalesceMoves) {
+        touchListener.setSwipeCoalesceMoves(swipeCoalesceMoves);
+    }
+
+    /**
+     * Sets if the swiped item is drawn in a hardware layer until it settles. Moving a layer does not redraw
+     * the content of the item, which helps with rich items. Each layer uses video memory while it is alive.
+     *
+     * @param swipeUseHardwareLayers
+     */
+    public void setSwipeUseHardwareLayers(boolean swipeUseHardwareLayers) {
+        touchListener.setSwipeUseHardwareLayers(swipeUseHardwareLayers);
+    }
+
+    /**
+     * Sets if the back view is also drawn in a hardware layer, when hardware layers are used
+     *
+     * @param swipeHardwareLayerBackView
+     */
+    public void setSwipeHardwareLayerBackView(boolean swipeHardwareLayerBackView) {
+        touchListener.setSwipeHardwareLayerBackView(swipeHardwareLayerBackView);
+    }
+
+    /**
+     * Sets how dismissed cells collapse. {@link #SWIPE_DISMISS_COLLAPSE_TRANSLATE} avoids a layout pass per
+     * frame, but the cells entering the bottom of the list only appear after the animation.
+     *
+     * @param swipeDismissCollapse {@link #SWIPE_DISMISS_COLLAPSE_HEIGHT} or {@link #SWIPE_DISMISS_COLLAPSE_TRANSLATE}
+     */
+    public void setSwipeDismissCollapse(int swipeDismissCollapse) {
+        touchListener.setSwipeDismissCollapse(swipeDismissCollapse);
+    }
+
+    /**
+     * Sets the number of dismisses which can be undone. Dismissed items are hidden at once but stay in the
+     * adapter: onDismiss is called later, once for all of them, when the undo timeout expires, on the next touch
+     * of the list, or for the oldest dismiss when more are waiting. The adapter must call
+     * {@link #recycle(View, int)} from getView to hide their cells.
+     *
+     * @param swipeUndoMaxPending number of dismisses, 0 to call onDismiss at once
+     */
+    public void setSwipeUndoMaxPending(int swipeUndoMaxPending) {
+        touchListener.setSwipeUndoMaxPending(swipeUndoMaxPending);
+    }
+
+    /**
+     * Sets the delay before the dismisses waiting for undo are committed
+     *
+     * @param swipeUndoTimeout delay in milliseconds
+     */
+    public void setSwipeUndoTimeout(long swipeUndoTimeout) {
+        touchListener.setSwipeUndoTimeout(swipeUndoTimeout);
+    }
+
+    /**
+     * Shows again the items of the last dismiss, if not committed yet. Items waiting for undo are not selected
+     * nor opened, they get back their states when undone.
+     *
+     * @return false if there is no dismiss to undo
+     */
+    public boolean undoDismiss() {
+        return touchListener.undoDismiss();
+    }
+
+    /**
+     * Commits the dismisses waiting for undo now, with one onDismiss call
+     */
+    public void commitDismisses() {
+        touchListener.commitDismisses();
+    }
+
+    /**
+     * Sets the metrics measuring the swipe gestures of this list. Measuring costs a few clock reads per gesture,
+     * and a frame callback per frame during drag and settle from API 16.
+     *
+     * @param metrics metrics, null to stop measuring
+     */
+    public void setSwipeMetrics(SwipeMetrics metrics) {
+        if (metrics != null) {
+            metrics.attach(getContext());
+        }
+        touchListener.setSwipeMetrics(metrics);
+    }
+
     /**
      * Sets if the user can open an item with long pressing on cell
      *
@@ -601,6 +1134,17 @@ public class SwipeListView extends ListView {
         touchListener.setSwipeMode(swipeMode);
     }
 
+    /**
+     * Set swipe mode of the items of a view type. It is used instead of asking
+     * {@link SwipeListViewListener#onChangeSwipeMode(int)}, which avoids an adapter lookup per swipe.
+     *
+     * @param viewType  view type of the adapter
+     * @param swipeMode swipe mode, or SWIPE_MODE_DEFAULT to remove it
+     */
+    public void setSwipeModeForViewType(int viewType, int swipeMode) {
+        touchListener.setSwipeModeForViewType(viewType, swipeMode);
+    }
+
     /**
      * Return action on left
      *
@@ -720,4 +1264,55 @@ public class SwipeListView extends ListView {
         touchListener.closeOpenedItems();
     }
 
+    /**
+     * Opened and checked states of the items, saved as packed bits (3 bits per item), or as item ids when the
+     * adapter has stable ids.
+     */
+    static class SavedState extends BaseSavedState {
+
+        int stateCount;
+        long[] openedStates;
+        long[] openedRightStates;
+        long[] checkedStates;
+        long[] itemIds;
+        int[] itemStates;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            stateCount = in.readInt();
+            openedStates = in.createLongArray();
+            openedRightStates = in.createLongArray();
+            checkedStates = in.createLongArray();
+            itemIds = in.createLongArray();
+            itemStates = in.createIntArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(stateCount);
+            out.writeLongArray(openedStates);
+            out.writeLongArray(openedRightStates);
+            out.writeLongArray(checkedStates);
+            out.writeLongArray(itemIds);
+            out.writeIntArray(itemStates);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
 }
@@ -95,14 +95,16 @@ public interface SwipeListViewListener {
     void onClickBackView(int position);
 
     /**
-     * Called when user dismisses items
+     * Called when user dismisses items. Their swipe states are already removed, the items must be removed from
+     * the adapter without calling {@link SwipeListView#notifyItemRangeRemoved(int, int)}.
      * @param reverseSortedPositions Items dismissed
      */
     void onDismiss(int[] reverseSortedPositions);
 
     /**
      * Used when user want to change swipe list mode on some rows. Return SWIPE_MODE_DEFAULT
-     * if you don't want to change swipe list mode
+     * if you don't want to change swipe list mode. Called once per gesture, when the row is touched,
+     * unless a swipe mode is set for the row view type with SwipeListView#setSwipeModeForViewType
      * @param position position that you want to change
      * @return type
      */
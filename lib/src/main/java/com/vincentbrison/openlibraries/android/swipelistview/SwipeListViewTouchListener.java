@@ -38,30 +38,25 @@ package com.vincentbrison.openlibraries.android.swipelistview;
 
 import android.graphics.Rect;
 import android.os.Build;
-import android.os.Handler;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.Log;
+import android.util.SparseIntArray;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.widget.AbsListView;
+import android.widget.ListAdapter;
 import android.widget.ListView;
 
-import com.nineoldandroids.animation.Animator;
-import com.nineoldandroids.animation.AnimatorListenerAdapter;
-import com.nineoldandroids.animation.ValueAnimator;
-import com.nineoldandroids.view.ViewHelper;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import static com.nineoldandroids.view.ViewHelper.setAlpha;
-import static com.nineoldandroids.view.ViewHelper.setTranslationX;
-import static com.nineoldandroids.view.ViewPropertyAnimator.animate;
-
 /**
  * Touch listener impl for the SwipeListView
  */
@@ -70,13 +65,23 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     private static final int DISPLACE_CHOICE = 80;
 
     private int swipeMode = SwipeListView.SWIPE_MODE_BOTH;
+    private SparseIntArray swipeModesByViewType = new SparseIntArray();
     private boolean swipeOpenOnLongPress = true;
     private boolean swipeClosesAllItemsWhenListMoves = true;
+    private int swipeMaxOpenedItems = 0;
+    private boolean swipeCoalesceMoves = false;
+    private boolean swipeUseHardwareLayers = false;
+    private boolean swipeHardwareLayerBackView = false;
+    private int swipeDismissCollapse = SwipeListView.SWIPE_DISMISS_COLLAPSE_HEIGHT;
+    private SwipeMetrics metrics;
+    private int swipeUndoMaxPending = 0;
+    private long swipeUndoTimeout = 4000;
 
     private int swipeFrontView = 0;
     private int swipeBackView = 0;
 
     private Rect rect = new Rect();
+    private int[] listViewCoords = new int[2];
 
     // Cached ViewConfiguration and system-wide constant values
     private int slop;
@@ -97,13 +102,25 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
 
     private List<PendingDismissData> pendingDismisses = new ArrayList<PendingDismissData>();
     private int dismissAnimationRefCount = 0;
+    private final SwipeAnimationBackend backend = SwipeAnimationBackend.get();
+    private final CollapseAnimation collapseAnimation = new CollapseAnimation();
+    private final DismissUndoQueue undoQueue = new DismissUndoQueue();
 
     private float downX;
+    // Down time of the gesture which committed the dismisses waiting for undo, left to the list.
+    private long dismissCommitDownTime = -1;
     private boolean swiping;
     private boolean swipingRight;
     private VelocityTracker velocityTracker;
+    private boolean trackingVelocity;
+    private boolean movePending;
+    private float pendingDeltaX;
     private int downPosition;
+    private int downSwipeMode;
     private View parentView;
+    // Views promoted to a hardware layer for the current gesture, handed to the settle animation on release.
+    private View layerView;
+    private View layerBackView;
     private View frontView;
     private View backView;
     private boolean paused;
@@ -113,13 +130,68 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     private int swipeActionLeft = SwipeListView.SWIPE_ACTION_REVEAL;
     private int swipeActionRight = SwipeListView.SWIPE_ACTION_REVEAL;
 
-    private List<Boolean> opened = new ArrayList<Boolean>();
-    private List<Boolean> openedRight = new ArrayList<Boolean>();
+    private SwipeStateStore states = new SwipeStateStore();
     private boolean listViewMoving;
-    private List<Boolean> checked = new ArrayList<Boolean>();
     private int oldSwipeActionRight;
     private int oldSwipeActionLeft;
 
+    /**
+     * Click listeners shared by all rows. The position is resolved from the clicked view.
+     */
+    private final View.OnClickListener frontViewClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            swipeListView.onClickFrontView(swipeListView.getPositionForView(v));
+        }
+    };
+
+    private final View.OnLongClickListener frontViewLongClickListener = new View.OnLongClickListener() {
+        @Override
+        public boolean onLongClick(View v) {
+            int position = swipeListView.getPositionForView(v);
+            if (position != ListView.INVALID_POSITION) {
+                openAnimate(position);
+            }
+            return false;
+        }
+    };
+
+    private final View.OnClickListener backViewClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            swipeListView.onClickBackView(swipeListView.getPositionForView(v));
+        }
+    };
+
+    /**
+     * Applies the last move received, once per frame
+     */
+    private final Runnable pendingMoveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (movePending) {
+                movePending = false;
+                move(pendingDeltaX);
+            }
+        }
+    };
+
+    // Posted on the next frame once the list stops scrolling
+    private final Runnable enableRunnable = new Runnable() {
+        @Override
+        public void run() {
+            setEnabled(true);
+        }
+    };
+
+    // Posted when the undo timeout of the dismissed items expires
+    private final Runnable commitDismissesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            commitDismisses();
+        }
+    };
+
     /**
      * Constructor
      *
@@ -155,20 +227,50 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      */
     private void setFrontView(View frontView) {
         this.frontView = frontView;
-        frontView.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                swipeListView.onClickFrontView(downPosition);
-            }
-        });
+        frontView.setOnClickListener(frontViewClickListener);
         if (swipeOpenOnLongPress) {
-            frontView.setOnLongClickListener(new View.OnLongClickListener() {
-                @Override
-                public boolean onLongClick(View v) {
-                    openAnimate(downPosition);
-                    return false;
-                }
-            });
+            frontView.setOnLongClickListener(frontViewLongClickListener);
+        }
+    }
+
+    /**
+     * @param cell cell of the list
+     * @return front view of the cell
+     */
+    View getFrontView(View cell) {
+        return getCellViews(cell).frontView;
+    }
+
+    /**
+     * @param cell cell of the list
+     * @return back view of the cell
+     */
+    View getBackView(View cell) {
+        return getCellViews(cell).backView;
+    }
+
+    /**
+     * Finds the front and back views of a cell on first use, then keeps them in the cell
+     */
+    private CellViews getCellViews(View cell) {
+        CellViews cellViews = (CellViews) cell.getTag(R.id.swipelistview__cell_views);
+        if (cellViews == null) {
+            cellViews = new CellViews(cell.findViewById(swipeFrontView), swipeBackView > 0 ? cell.findViewById(swipeBackView) : null);
+            cell.setTag(R.id.swipelistview__cell_views, cellViews);
+        }
+        return cellViews;
+    }
+
+    /**
+     * Front and back views of a cell
+     */
+    private static class CellViews {
+        final View frontView;
+        final View backView;
+
+        CellViews(View frontView, View backView) {
+            this.frontView = frontView;
+            this.backView = backView;
         }
     }
 
@@ -179,12 +281,7 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      */
     private void setBackView(View backView) {
         this.backView = backView;
-        backView.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                swipeListView.onClickBackView(downPosition);
-            }
-        });
+        backView.setOnClickListener(backViewClickListener);
     }
 
     /**
@@ -243,6 +340,98 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
         this.swipeOpenOnLongPress = swipeOpenOnLongPress;
     }
 
+    /**
+     * Set the maximum number of items opened at the same time. When an item opens over this limit, the item
+     * opened first is closed.
+     *
+     * @param swipeMaxOpenedItems maximum number of opened items, 0 for no limit
+     */
+    public void setSwipeMaxOpenedItems(int swipeMaxOpenedItems) {
+        this.swipeMaxOpenedItems = swipeMaxOpenedItems;
+    }
+
+    /**
+     * Set if the swiped views are drawn in a hardware layer during the gesture and its settle animation
+     *
+     * @param swipeUseHardwareLayers
+     */
+    public void setSwipeUseHardwareLayers(boolean swipeUseHardwareLayers) {
+        this.swipeUseHardwareLayers = swipeUseHardwareLayers;
+    }
+
+    /**
+     * Set if the back view is promoted to a hardware layer along with the front view
+     *
+     * @param swipeHardwareLayerBackView
+     */
+    public void setSwipeHardwareLayerBackView(boolean swipeHardwareLayerBackView) {
+        this.swipeHardwareLayerBackView = swipeHardwareLayerBackView;
+    }
+
+    /**
+     * Set the number of dismisses which can be undone. Dismissed items are hidden, and onDismiss is delayed
+     * until the timeout, the next touch, or more dismisses than this number.
+     *
+     * @param swipeUndoMaxPending number of dismisses, 0 to call onDismiss at once
+     */
+    public void setSwipeUndoMaxPending(int swipeUndoMaxPending) {
+        this.swipeUndoMaxPending = swipeUndoMaxPending;
+        if (swipeUndoMaxPending <= 0) {
+            commitDismisses();
+        }
+    }
+
+    /**
+     * Set the delay before the dismisses waiting for undo are committed
+     *
+     * @param swipeUndoTimeout delay in milliseconds
+     */
+    public void setSwipeUndoTimeout(long swipeUndoTimeout) {
+        this.swipeUndoTimeout = swipeUndoTimeout;
+    }
+
+    /**
+     * Set how dismissed items collapse
+     *
+     * @param swipeDismissCollapse
+     */
+    public void setSwipeDismissCollapse(int swipeDismissCollapse) {
+        this.swipeDismissCollapse = swipeDismissCollapse;
+    }
+
+    /**
+     * Set the metrics of the swipe gestures
+     *
+     * @param metrics metrics, null to stop measuring
+     */
+    public void setSwipeMetrics(SwipeMetrics metrics) {
+        if (this.metrics != null && this.metrics != metrics) {
+            this.metrics.stop();
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Stops measuring the gesture in progress
+     */
+    void stopSwipeMetrics() {
+        if (metrics != null) {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Set if the moves of a swiped item are applied once per frame instead of once per touch event
+     *
+     * @param swipeCoalesceMoves
+     */
+    public void setSwipeCoalesceMoves(boolean swipeCoalesceMoves) {
+        this.swipeCoalesceMoves = swipeCoalesceMoves;
+        if (!swipeCoalesceMoves) {
+            flushPendingMove();
+        }
+    }
+
     /**
      * Sets the swipe mode
      *
@@ -252,6 +441,37 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
         this.swipeMode = swipeMode;
     }
 
+    /**
+     * Sets the swipe mode of the items of a view type. It is used instead of asking
+     * {@link SwipeListViewListener#onChangeSwipeMode(int)}.
+     *
+     * @param viewType  view type of the adapter
+     * @param swipeMode swipe mode, or SWIPE_MODE_DEFAULT to remove it
+     */
+    public void setSwipeModeForViewType(int viewType, int swipeMode) {
+        if (swipeMode == SwipeListView.SWIPE_MODE_DEFAULT) {
+            swipeModesByViewType.delete(viewType);
+        } else {
+            swipeModesByViewType.put(viewType, swipeMode);
+        }
+    }
+
+    /**
+     * Resolves the swipe mode of an item: the mode of its view type if any, otherwise the mode given by the
+     * listener, otherwise the list swipe mode
+     *
+     * @param position position of the item
+     * @param viewType view type of the item
+     * @return swipe mode
+     */
+    private int resolveSwipeMode(int position, int viewType) {
+        int mode = swipeModesByViewType.get(viewType, SwipeListView.SWIPE_MODE_DEFAULT);
+        if (mode < 0) {
+            mode = swipeListView.changeSwipeMode(position);
+        }
+        return mode >= 0 ? mode : swipeMode;
+    }
+
     /**
      * Check is swiping is enabled
      *
@@ -316,27 +536,90 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     }
 
     /**
-     * Adds new items when adapter is modified
+     * Updates the states when adapter is modified. If the adapter has stable ids, the states follow their
+     * items to their new positions.
      */
     public void resetItems() {
         if (swipeListView.getAdapter() != null) {
-            int count = swipeListView.getAdapter().getCount();
-            for (int i = opened.size(); i <= count; i++) {
-
-                opened.add(false);
-                openedRight.add(false);
-                checked.add(false);
+            int lastCount = getCountSelected();
+            states.sync(swipeListView.getAdapter());
+            if (swipeListView.getAdapter().hasStableIds()) {
+                undoQueue.remapIds(swipeListView.getAdapter());
+            }
+            if (lastCount == 0 && getCountSelected() > 0) {
+                // Selection restored by item id before the adapter was set.
+                setActionsTo(SwipeListView.SWIPE_ACTION_CHOICE);
             }
         }
     }
 
+    /**
+     * Shifts the states after items were inserted in the adapter
+     *
+     * @param positionStart position of the first inserted item
+     * @param itemCount     number of inserted items
+     */
+    protected void insertItems(int positionStart, int itemCount) {
+        states.insert(positionStart, itemCount);
+        undoQueue.insert(positionStart, itemCount);
+    }
+
+    /**
+     * Shifts the states after items were removed from the adapter
+     *
+     * @param positionStart position of the first removed item
+     * @param itemCount     number of removed items
+     */
+    protected void removeItems(int positionStart, int itemCount) {
+        states.remove(positionStart, itemCount);
+        undoQueue.remove(positionStart, itemCount);
+    }
+
+    /**
+     * Moves the state of an item moved in the adapter
+     *
+     * @param fromPosition previous position of the item
+     * @param toPosition   new position of the item
+     */
+    protected void moveItem(int fromPosition, int toPosition) {
+        states.move(fromPosition, toPosition);
+        undoQueue.move(fromPosition, toPosition);
+    }
+
+    /**
+     * Saves the opened and checked states, after committing the dismisses waiting for undo
+     *
+     * @param state state to save into
+     */
+    protected void saveState(SwipeListView.SavedState state) {
+        // The rows waiting for undo are gone from the adapter by the time the state is restored.
+        commitDismisses();
+        states.saveState(state);
+    }
+
+    /**
+     * Restores the opened and checked states, and the choice actions if items are checked
+     *
+     * @param state saved state
+     */
+    protected void restoreState(SwipeListView.SavedState state) {
+        int lastCount = getCountSelected();
+        states.restoreState(state);
+        int count = getCountSelected();
+        if (lastCount == 0 && count > 0) {
+            setActionsTo(SwipeListView.SWIPE_ACTION_CHOICE);
+        } else if (lastCount > 0 && count == 0) {
+            returnOldActions();
+        }
+    }
+
     /**
      * Open item
      *
      * @param position Position of list
      */
     protected void openAnimate(int position) {
-        openAnimate(swipeListView.getChildAt(position - swipeListView.getFirstVisiblePosition()).findViewById(swipeFrontView), position);
+        openAnimate(getFrontView(swipeListView.getChildAt(position - swipeListView.getFirstVisiblePosition())), position);
     }
 
     /**
@@ -345,7 +628,7 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position Position of list
      */
     protected void closeAnimate(int position) {
-        closeAnimate(swipeListView.getChildAt(position - swipeListView.getFirstVisiblePosition()).findViewById(swipeFrontView), position);
+        closeAnimate(getFrontView(swipeListView.getChildAt(position - swipeListView.getFirstVisiblePosition())), position);
     }
 
     /**
@@ -355,12 +638,14 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      */
     private void swapChoiceState(int position) {
         int lastCount = getCountSelected();
-        boolean lastChecked = checked.get(position);
-        checked.set(position, !lastChecked);
-        int count = lastChecked ? lastCount - 1 : lastCount + 1;
+        boolean lastChecked = states.isChecked(position);
+        states.setChecked(position, !lastChecked);
+        int count = getCountSelected();
         if (lastCount == 0 && count == 1) {
             swipeListView.onChoiceStarted();
-            Log.i("swipe", "call closeOpenedItems from swapChoiceState");
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+                SwipeLogger.print(Log.INFO, "swipe", "call closeOpenedItems from swapChoiceState");
+            }
             closeOpenedItems();
             setActionsTo(SwipeListView.SWIPE_ACTION_CHOICE);
         }
@@ -381,12 +666,13 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     protected void unselectedChoiceStates() {
         int start = swipeListView.getFirstVisiblePosition();
         int end = swipeListView.getLastVisiblePosition();
-        for (int i = 0; i < checked.size(); i++) {
-            if (checked.get(i) && i >= start && i <= end) {
-                reloadChoiceStateInView(swipeListView.getChildAt(i - start).findViewById(swipeFrontView), i);
+        for (int i = start; i <= end; i++) {
+            if (states.isChecked(i)) {
+                states.setChecked(i, false);
+                reloadChoiceStateInView(getFrontView(swipeListView.getChildAt(i - start)), i);
             }
-            checked.set(i, false);
         }
+        states.clearChecked();
         swipeListView.onChoiceEnded();
         returnOldActions();
     }
@@ -401,7 +687,6 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
         int start = swipeListView.getFirstVisiblePosition();
         int end = swipeListView.getLastVisiblePosition();
         View view = swipeListView.getChildAt(position - start);
-        ++dismissAnimationRefCount;
         if (position >= start && position <= end) {
             performDismiss(view, position, false);
             return view.getHeight();
@@ -431,24 +716,24 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param frontView view to re-draw
      */
     protected void reloadSwipeStateInView(View frontView, int position) {
-        if (position < opened.size()) {
-            if (this.swipeClosesAllItemsWhenListMoves && opened.get(position)) {
+        if (position < states.size()) {
+            if (this.swipeClosesAllItemsWhenListMoves && states.isOpened(position)) {
                 // TODO : This should be done with animations.
-                setTranslationX(frontView, 0.0f);
-                opened.set(position, false);
-                openedRight.set(position, false);
+                backend.setTranslationX(frontView, 0.0f);
+                states.setOpened(position, false);
+                states.setOpenedRight(position, false);
             }
-            if (!opened.get(position)) {
-                setTranslationX(frontView, 0.0f);
+            if (!states.isOpened(position)) {
+                backend.setTranslationX(frontView, 0.0f);
             } else {
-                if (openedRight.get(position)) {
-                    setTranslationX(frontView, swipeListView.getWidth() - rightOffset);
+                if (states.isOpenedRight(position)) {
+                    backend.setTranslationX(frontView, swipeListView.getWidth() - rightOffset);
                 } else {
-                    setTranslationX(frontView, leftOffset - swipeListView.getWidth());
+                    backend.setTranslationX(frontView, leftOffset - swipeListView.getWidth());
                 }
             }
         } else {
-            setTranslationX(frontView, 0.0f);
+            backend.setTranslationX(frontView, 0.0f);
         }
 
     }
@@ -460,7 +745,7 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @return
      */
     protected boolean isChecked(int position) {
-        return position < checked.size() && checked.get(position);
+        return states.isChecked(position);
     }
 
     /**
@@ -469,14 +754,7 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @return
      */
     protected int getCountSelected() {
-        int count = 0;
-        for (int i = 0; i < checked.size(); i++) {
-            if (checked.get(i)) {
-                count++;
-            }
-        }
-        Log.d("SwipeListView", "selected: " + count);
-        return count;
+        return states.getCheckedCount();
     }
 
     /**
@@ -485,15 +763,37 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @return
      */
     protected List<Integer> getPositionsSelected() {
-        List<Integer> list = new ArrayList<Integer>();
-        for (int i = 0; i < checked.size(); i++) {
-            if (checked.get(i)) {
-                list.add(i);
-            }
+        List<Integer> list = new ArrayList<Integer>(states.getCheckedCount());
+        for (int i = states.nextChecked(0); i >= 0; i = states.nextChecked(i + 1)) {
+            list.add(i);
         }
         return list;
     }
 
+    /**
+     * Get positions selected, without allocation
+     *
+     * @param into array to fill with the positions, by ascending order
+     * @return number of positions written in into
+     */
+    protected int getCheckedPositions(int[] into) {
+        int count = 0;
+        for (int i = states.nextChecked(0); i >= 0 && count < into.length; i = states.nextChecked(i + 1)) {
+            into[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+     * Get next position selected
+     *
+     * @param fromPosition first position to look at
+     * @return position selected, or -1 if there is none
+     */
+    protected int nextCheckedPosition(int fromPosition) {
+        return states.nextChecked(fromPosition);
+    }
+
     /**
      * Open item
      *
@@ -501,9 +801,13 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position Position of list
      */
     private void openAnimate(View view, int position) {
-        Log.i("swipe", "openAnimate " + position);
-        if (!opened.get(position)) {
-            Log.i("swipe", "openAnimate " + position + " because it is closed according the model.");
+        if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+            SwipeLogger.print(Log.INFO, "swipe", "openAnimate " + position);
+        }
+        if (!states.isOpened(position)) {
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+                SwipeLogger.print(Log.INFO, "swipe", "openAnimate " + position + " because it is closed according the model.");
+            }
             generateRevealAnimate(view, true, false, position);
         }
     }
@@ -515,7 +819,7 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position Position of list
      */
     private void closeAnimate(View view, int position) {
-        if (opened.get(position)) {
+        if (states.isOpened(position)) {
             generateRevealAnimate(view, true, false, position);
         }
     }
@@ -529,7 +833,9 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position  Position of list
      */
     private void generateAnimate(final View view, final boolean swap, final boolean swapRight, final int position) {
-        Log.d("SwipeListView", "swap: " + swap + " - swapRight: " + swapRight + " - position: " + position);
+        if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.DEBUG)) {
+            SwipeLogger.print(Log.DEBUG, "SwipeListView", "swap: " + swap + " - swapRight: " + swapRight + " - position: " + position);
+        }
         if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_REVEAL) {
             generateRevealAnimate(view, swap, swapRight, position);
         }
@@ -548,16 +854,11 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position list position
      */
     private void generateChoiceAnimate(final View view, final int position) {
-        animate(view)
-                .translationX(0)
-                .setDuration(animationTime)
-                .setListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        swipeListView.resetScrolling();
-                        resetCell();
-                    }
-                });
+        SwipeAnimationListener listener = getSwipeAnimationListener(view);
+        listener.animation.translationX(0);
+        // Updated after translationX, which ends the previous animation of the view with its listener.
+        listener.set(SwipeListView.SWIPE_ACTION_CHOICE, false, false, position);
+        listener.animation.start(animationTime);
     }
 
     /**
@@ -570,9 +871,9 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      */
     private void generateDismissAnimate(final View view, final boolean swap, final boolean swapRight, final int position) {
         int moveTo = 0;
-        if (opened.get(position)) {
+        if (states.isOpened(position)) {
             if (!swap) {
-                moveTo = openedRight.get(position) ? (int) (viewWidth - rightOffset) : (int) (-viewWidth + leftOffset);
+                moveTo = states.isOpenedRight(position) ? (int) (viewWidth - rightOffset) : (int) (-viewWidth + leftOffset);
             }
         } else {
             if (swap) {
@@ -586,22 +887,28 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             alpha = 0;
         }
 
-        animate(view)
-                .translationX(moveTo)
-                .alpha(alpha)
-                .setDuration(animationTime)
-                .setListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        if (swap) {
-                            Log.i("swipe", "call closeOpenedItems from generateDismissAnimate");
-                            closeOpenedItems();
-                            performDismiss(view, position, true);
-                        }
-                        resetCell();
-                    }
-                });
+        SwipeAnimationListener listener = getSwipeAnimationListener(view);
+        listener.animation.translationX(moveTo).alpha(alpha);
+        listener.set(SwipeListView.SWIPE_ACTION_DISMISS, swap, swapRight, position);
+        listener.animation.start(animationTime);
+    }
 
+    /**
+     * End of dismiss animation
+     *
+     * @param view     affected view
+     * @param swap     If the item is dismissed
+     * @param position Position of list
+     */
+    private void onDismissAnimationEnd(View view, boolean swap, int position) {
+        if (swap) {
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+                SwipeLogger.print(Log.INFO, "swipe", "call closeOpenedItems from generateDismissAnimate");
+            }
+            closeOpenedItems();
+            performDismiss(view, position, true);
+        }
+        resetCell();
     }
 
     /**
@@ -613,13 +920,15 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      * @param position  list position
      */
     private void generateRevealAnimate(final View view, final boolean swap, final boolean swapRight, final int position) {
-        Log.i("swipe", "generateRevealAnimate" + position);
+        if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+            SwipeLogger.print(Log.INFO, "swipe", "generateRevealAnimate" + position);
+        }
         int moveTo = 0;
-        if (opened.get(position)) {
+        if (states.isOpened(position)) {
             // The cell was open :
             if (!swap) {
                 // No swap ask, i.e. come back to original position.
-                moveTo = openedRight.get(position) ? (int) (viewWidth - rightOffset) : (int) (-viewWidth + leftOffset);
+                moveTo = states.isOpenedRight(position) ? (int) (viewWidth - rightOffset) : (int) (-viewWidth + leftOffset);
             } else {
                 // moveTo 0. If the cell was opened and ask swap, the view is reset.
             }
@@ -632,30 +941,173 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             }
         }
 
-        animate(view)
-                .translationX(moveTo)
-                .setDuration(animationTime)
-                .setListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        swipeListView.resetScrolling();
-                        if (swap) {
-                            boolean aux = !opened.get(position);
-                            opened.set(position, aux);
-                            Log.i("swipe", "set opened " + aux + " at " + position);
-                            if (aux) {
-                                // The view was closed before this animation.
-                                openedRight.set(position, swapRight);
-                                swipeListView.onOpened(position, swapRight);
-                            } else {
-                                // The view was open before this animation.
-                                openedRight.set(position, false);
-                                swipeListView.onClosed(position, openedRight.get(position));
-                            }
-                        }
-                        resetCell();
-                    }
-                });
+        SwipeAnimationListener listener = getSwipeAnimationListener(view);
+        listener.animation.translationX(moveTo);
+        listener.set(SwipeListView.SWIPE_ACTION_REVEAL, swap, swapRight, position);
+        listener.animation.start(animationTime);
+    }
+
+    /**
+     * End of reveal animation
+     *
+     * @param swap      If the state changed
+     * @param swapRight If swap is true, this parameter tells if movement was toward right or left
+     * @param position  list position
+     */
+    private void onRevealAnimationEnd(boolean swap, boolean swapRight, int position) {
+        swipeListView.resetScrolling();
+        if (swap) {
+            boolean aux = !states.isOpened(position);
+            states.setOpened(position, aux);
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+                SwipeLogger.print(Log.INFO, "swipe", "set opened " + aux + " at " + position);
+            }
+            if (aux) {
+                // The view was closed before this animation.
+                states.setOpenedRight(position, swapRight);
+                swipeListView.onOpened(position, swapRight);
+                closeOldestOpenedItems();
+            } else {
+                // The view was open before this animation.
+                states.setOpenedRight(position, false);
+                swipeListView.onClosed(position, states.isOpenedRight(position));
+            }
+        }
+        resetCell();
+    }
+
+    /**
+     * Get the animation listener of a view, created on first use and then kept in the view
+     *
+     * @param view animated view
+     * @return listener
+     */
+    private SwipeAnimationListener getSwipeAnimationListener(View view) {
+        SwipeAnimationListener listener = (SwipeAnimationListener) view.getTag(R.id.swipelistview__swipe_animation);
+        if (listener == null) {
+            listener = new SwipeAnimationListener(view);
+            view.setTag(R.id.swipelistview__swipe_animation, listener);
+        }
+        return listener;
+    }
+
+    /**
+     * Listener of the reveal, dismiss and choice animations of a view, reused by all its animations
+     */
+    private class SwipeAnimationListener implements SwipeAnimationBackend.AnimationListener {
+        private final View view;
+        private final SwipeAnimationBackend.ViewAnimation animation;
+        private int action;
+        private boolean swap;
+        private boolean swapRight;
+        private int position;
+        private View layerView;
+        private View layerBackView;
+        // Gesture of SwipeMetrics ending with this animation, 0 if none
+        private int measuredGesture;
+
+        SwipeAnimationListener(View view) {
+            this.view = view;
+            animation = backend.createViewAnimation(view, this);
+        }
+
+        void set(int action, boolean swap, boolean swapRight, int position) {
+            this.action = action;
+            this.swap = swap;
+            this.swapRight = swapRight;
+            this.position = position;
+        }
+
+        /**
+         * Takes the views layered by the gesture, to release them when this animation ends
+         */
+        void takeLayers() {
+            layerView = SwipeListViewTouchListener.this.layerView;
+            layerBackView = SwipeListViewTouchListener.this.layerBackView;
+            SwipeListViewTouchListener.this.layerView = null;
+            SwipeListViewTouchListener.this.layerBackView = null;
+        }
+
+        @Override
+        public void onAnimationEnd() {
+            releaseLayer(layerView);
+            releaseLayer(layerBackView);
+            layerView = null;
+            layerBackView = null;
+            if (measuredGesture != 0) {
+                if (metrics != null) {
+                    metrics.onSettled(measuredGesture);
+                }
+                measuredGesture = 0;
+            }
+            switch (action) {
+                case SwipeListView.SWIPE_ACTION_REVEAL:
+                    onRevealAnimationEnd(swap, swapRight, position);
+                    break;
+                case SwipeListView.SWIPE_ACTION_DISMISS:
+                    onDismissAnimationEnd(view, swap, position);
+                    break;
+                case SwipeListView.SWIPE_ACTION_CHOICE:
+                    swipeListView.resetScrolling();
+                    resetCell();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Promotes the views moved by the current gesture to hardware layers, if enabled
+     */
+    private void promoteLayers() {
+        if (!swipeUseHardwareLayers) {
+            return;
+        }
+        if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_DISMISS) {
+            // The whole row is moved and faded, front and back views are drawn in its layer.
+            layerView = promoteLayer(parentView);
+        } else {
+            layerView = promoteLayer(frontView);
+            if (swipeHardwareLayerBackView) {
+                layerBackView = promoteLayer(backView);
+            }
+        }
+    }
+
+    /**
+     * @param view view to promote
+     * @return the view, or null if it already had a layer set by someone else
+     */
+    private static View promoteLayer(View view) {
+        if (view == null || ViewCompat.getLayerType(view) != ViewCompat.LAYER_TYPE_NONE) {
+            return null;
+        }
+        ViewCompat.setLayerType(view, ViewCompat.LAYER_TYPE_HARDWARE, null);
+        return view;
+    }
+
+    /**
+     * Drops the layer of a view promoted by {@link #promoteLayer(View)}, unless a new gesture uses it
+     *
+     * @param view promoted view, can be null
+     */
+    private void releaseLayer(View view) {
+        if (view != null && view != layerView && view != layerBackView) {
+            ViewCompat.setLayerType(view, ViewCompat.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    /**
+     * Drops the layers of a gesture which ended without settle animation
+     */
+    private void releaseGestureLayers() {
+        View view = layerView;
+        View backView = layerBackView;
+        layerView = null;
+        layerBackView = null;
+        releaseLayer(view);
+        releaseLayer(backView);
     }
 
     private void resetCell() {
@@ -663,8 +1115,8 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
                 backView.setVisibility(View.VISIBLE);
             }
-            frontView.setClickable(opened.get(downPosition));
-            frontView.setLongClickable(opened.get(downPosition));
+            frontView.setClickable(states.isOpened(downPosition));
+            frontView.setLongClickable(states.isOpened(downPosition));
             frontView = null;
             backView = null;
             downPosition = ListView.INVALID_POSITION;
@@ -695,22 +1147,22 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             public void onScrollStateChanged(AbsListView absListView, int scrollState) {
                 setEnabled(scrollState != AbsListView.OnScrollListener.SCROLL_STATE_TOUCH_SCROLL);
                 if (swipeClosesAllItemsWhenListMoves && scrollState == SCROLL_STATE_TOUCH_SCROLL) {
-                    Log.i("swipe", "call closeOpenedItems from onScrollStateChanged");
+                    if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+                        SwipeLogger.print(Log.INFO, "swipe", "call closeOpenedItems from onScrollStateChanged");
+                    }
                     closeOpenedItems();
                 }
                 if (scrollState == SCROLL_STATE_TOUCH_SCROLL) {
                     listViewMoving = true;
+                    swipeListView.removeCallbacks(enableRunnable);
                     setEnabled(false);
                 }
                 if (scrollState != AbsListView.OnScrollListener.SCROLL_STATE_FLING && scrollState != SCROLL_STATE_TOUCH_SCROLL) {
                     listViewMoving = false;
                     downPosition = ListView.INVALID_POSITION;
                     swipeListView.resetScrolling();
-                    new Handler().postDelayed(new Runnable() {
-                        public void run() {
-                            setEnabled(true);
-                        }
-                    }, 500);
+                    swipeListView.removeCallbacks(enableRunnable);
+                    ViewCompat.postOnAnimation(swipeListView, enableRunnable);
                 }
                 swipeListView.onScrollStateChanged(absListView, scrollState);
             }
@@ -749,20 +1201,46 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     }
 
     /**
-     * Close all opened items
+     * Close all opened items, including the ones which are not visible
      */
     void closeOpenedItems() {
-        Log.i("swipe", "closeOpenedItems");
-        if (opened != null) {
-            int start = swipeListView.getFirstVisiblePosition();
-            int end = swipeListView.getLastVisiblePosition();
-            for (int i = start; i <= end; i++) {
-                if (opened.get(i)) {
-                    closeAnimate(swipeListView.getChildAt(i - start).findViewById(swipeFrontView), i);
-                }
-            }
+        if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.INFO)) {
+            SwipeLogger.print(Log.INFO, "swipe", "closeOpenedItems");
+        }
+        // Backward, as closing a non visible item removes it from the opened positions.
+        for (int i = states.getOpenedCount() - 1; i >= 0; i--) {
+            closeOpenedItem(states.getOpenedPosition(i));
         }
+    }
 
+    /**
+     * Close the items opened first, until no more than swipeMaxOpenedItems items are opened
+     */
+    private void closeOldestOpenedItems() {
+        if (swipeMaxOpenedItems <= 0) {
+            return;
+        }
+        for (int i = states.getOpenedCount() - swipeMaxOpenedItems - 1; i >= 0; i--) {
+            closeOpenedItem(states.getOpenedPosition(i));
+        }
+    }
+
+    /**
+     * Close an opened item. The item is animated if visible, otherwise only its state is updated.
+     *
+     * @param position Position of list
+     */
+    private void closeOpenedItem(int position) {
+        int start = swipeListView.getFirstVisiblePosition();
+        int end = swipeListView.getLastVisiblePosition();
+        if (position >= start && position <= end) {
+            closeAnimate(getFrontView(swipeListView.getChildAt(position - start)), position);
+        } else {
+            boolean fromRight = states.isOpenedRight(position);
+            states.setOpened(position, false);
+            states.setOpenedRight(position, false);
+            swipeListView.onClosed(position, fromRight);
+        }
     }
 
     /**
@@ -770,6 +1248,20 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
      */
     @Override
     public boolean onTouch(View view, MotionEvent motionEvent) {
+        boolean traced = SwipeTrace.begin("SwipeListView.onTouch");
+        try {
+            return handleTouch(view, motionEvent);
+        } finally {
+            if (traced) {
+                SwipeTrace.end();
+            }
+        }
+    }
+
+    /**
+     * Handles a touch event of the list
+     */
+    private boolean handleTouch(View view, MotionEvent motionEvent) {
         if (!isSwipeEnabled()) {
             return false;
         }
@@ -778,44 +1270,64 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             viewWidth = swipeListView.getWidth();
         }
 
+        if (motionEvent.getDownTime() == dismissCommitDownTime) {
+            // Each event reaches onTouch twice, the children are stale until the next layout.
+            return false;
+        }
+
         switch (MotionEventCompat.getActionMasked(motionEvent)) {
             case MotionEvent.ACTION_DOWN: {
+                if (!undoQueue.isEmpty()) {
+                    // The items move once the dismisses are committed, the whole gesture is left to the list.
+                    dismissCommitDownTime = motionEvent.getDownTime();
+                    commitDismisses();
+                    return false;
+                }
                 if (paused && downPosition != ListView.INVALID_POSITION) {
                     return false;
                 }
                 swipeCurrentAction = SwipeListView.SWIPE_ACTION_NONE;
+                cancelPendingMove();
+                releaseGestureLayers();
 
-                int childCount = swipeListView.getChildCount();
-                int[] listViewCoords = new int[2];
                 swipeListView.getLocationOnScreen(listViewCoords);
                 int x = (int) motionEvent.getRawX() - listViewCoords[0];
                 int y = (int) motionEvent.getRawY() - listViewCoords[1];
-                View child;
-                for (int i = 0; i < childCount; i++) {
-                    child = swipeListView.getChildAt(i);
+                int childIndex = findChildIndexAt(y);
+                if (childIndex >= 0) {
+                    View child = swipeListView.getChildAt(childIndex);
                     child.getHitRect(rect);
 
-                    int childPosition = swipeListView.getPositionForView(child);
+                    int childPosition = swipeListView.getFirstVisiblePosition() + childIndex;
 
                     // dont allow swiping if this is on the header or footer or IGNORE_ITEM_VIEW_TYPE or enabled is false on the adapter
-                    boolean allowSwipe = swipeListView.getAdapter().isEnabled(childPosition) && swipeListView.getAdapter().getItemViewType(childPosition) >= 0;
-
-                    if (allowSwipe && rect.contains(x, y)) {
+                    int viewType = rect.contains(x, y) && swipeListView.getAdapter().isEnabled(childPosition)
+                            ? swipeListView.getAdapter().getItemViewType(childPosition) : ListAdapter.IGNORE_ITEM_VIEW_TYPE;
+                    if (viewType >= 0) {
                         setParentView(child);
-                        setFrontView(child.findViewById(swipeFrontView));
+                        setFrontView(getFrontView(child));
 
                         downX = motionEvent.getRawX();
                         downPosition = childPosition;
+                        if (metrics != null) {
+                            metrics.onDown(motionEvent.getEventTime());
+                        }
+                        // Resolved once per gesture, not on each move.
+                        downSwipeMode = resolveSwipeMode(childPosition, viewType);
 
-                        frontView.setClickable(!opened.get(downPosition));
-                        frontView.setLongClickable(!opened.get(downPosition));
+                        frontView.setClickable(!states.isOpened(downPosition));
+                        frontView.setLongClickable(!states.isOpened(downPosition));
 
-                        velocityTracker = VelocityTracker.obtain();
+                        if (velocityTracker == null) {
+                            velocityTracker = VelocityTracker.obtain();
+                        } else {
+                            velocityTracker.clear();
+                        }
                         velocityTracker.addMovement(motionEvent);
+                        trackingVelocity = true;
                         if (swipeBackView > 0) {
-                            setBackView(child.findViewById(swipeBackView));
+                            setBackView(getBackView(child));
                         }
-                        break;
                     }
                 }
                 view.onTouchEvent(motionEvent);
@@ -823,19 +1335,26 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             }
 
             case MotionEvent.ACTION_UP: {
-                if (velocityTracker == null || !swiping || downPosition == ListView.INVALID_POSITION) {
+                if (!trackingVelocity || !swiping || downPosition == ListView.INVALID_POSITION) {
+                    trackingVelocity = false;
+                    if (metrics != null) {
+                        // Nothing settles after a tap or a gesture which did not swipe.
+                        metrics.onCancel();
+                    }
                     break;
                 }
+                // The last move has to be applied as it may change the swipe direction.
+                flushPendingMove();
 
                 float deltaX = motionEvent.getRawX() - downX;
                 velocityTracker.addMovement(motionEvent);
                 velocityTracker.computeCurrentVelocity(1000);
                 float velocityX = Math.abs(velocityTracker.getXVelocity());
-                if (!opened.get(downPosition)) {
-                    if (swipeMode == SwipeListView.SWIPE_MODE_LEFT && velocityTracker.getXVelocity() > 0) {
+                if (!states.isOpened(downPosition)) {
+                    if (downSwipeMode == SwipeListView.SWIPE_MODE_LEFT && velocityTracker.getXVelocity() > 0) {
                         velocityX = 0;
                     }
-                    if (swipeMode == SwipeListView.SWIPE_MODE_RIGHT && velocityTracker.getXVelocity() < 0) {
+                    if (downSwipeMode == SwipeListView.SWIPE_MODE_RIGHT && velocityTracker.getXVelocity() < 0) {
                         velocityX = 0;
                     }
                 }
@@ -844,12 +1363,14 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
                 boolean swapRight = false;
                 if (minFlingVelocity <= velocityX && velocityX <= maxFlingVelocity && velocityY * 2 < velocityX) {
                     swapRight = velocityTracker.getXVelocity() > 0;
-                    Log.d("SwipeListView", "swapRight: " + swapRight + " - swipingRight: " + swipingRight);
+                    if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.DEBUG)) {
+                        SwipeLogger.print(Log.DEBUG, "SwipeListView", "swapRight: " + swapRight + " - swipingRight: " + swipingRight);
+                    }
                     if (swapRight != swipingRight && swipeActionLeft != swipeActionRight) {
                         swap = false;
-                    } else if (opened.get(downPosition) && openedRight.get(downPosition) && swapRight) {
+                    } else if (states.isOpened(downPosition) && states.isOpenedRight(downPosition) && swapRight) {
                         swap = false;
-                    } else if (opened.get(downPosition) && !openedRight.get(downPosition) && !swapRight) {
+                    } else if (states.isOpened(downPosition) && !states.isOpenedRight(downPosition) && !swapRight) {
                         swap = false;
                     } else {
                         swap = true;
@@ -861,45 +1382,45 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
 
 
                 generateAnimate(frontView, swap, swapRight, downPosition);
+                if (layerView != null || layerBackView != null || metrics != null) {
+                    // The settle animation drops the layers and ends the measure when it ends.
+                    View animated = swipeCurrentAction == SwipeListView.SWIPE_ACTION_DISMISS ? parentView : frontView;
+                    SwipeAnimationListener listener = getSwipeAnimationListener(animated);
+                    listener.takeLayers();
+                    if (metrics != null) {
+                        listener.measuredGesture = metrics.onRelease(swipeCurrentAction, swap);
+                    }
+                }
                 if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
                     swapChoiceState(downPosition);
                 }
 
-                velocityTracker.recycle();
-                velocityTracker = null;
+                trackingVelocity = false;
                 downX = 0;
                 // change clickable front view
 //                if (swap) {
-//                    frontView.setClickable(opened.get(downPosition));
-//                    frontView.setLongClickable(opened.get(downPosition));
+//                    frontView.setClickable(states.isOpened(downPosition));
+//                    frontView.setLongClickable(states.isOpened(downPosition));
 //                }
                 swiping = false;
                 break;
             }
 
             case MotionEvent.ACTION_MOVE: {
-                if (velocityTracker == null || paused || downPosition == ListView.INVALID_POSITION) {
+                if (!trackingVelocity || paused || downPosition == ListView.INVALID_POSITION) {
                     break;
                 }
 
                 velocityTracker.addMovement(motionEvent);
-                velocityTracker.computeCurrentVelocity(1000);
-                float velocityX = Math.abs(velocityTracker.getXVelocity());
-                float velocityY = Math.abs(velocityTracker.getYVelocity());
 
                 float deltaX = motionEvent.getRawX() - downX;
                 float deltaMode = Math.abs(deltaX);
 
-                int swipeMode = this.swipeMode;
-                int changeSwipeMode = swipeListView.changeSwipeMode(downPosition);
-                if (changeSwipeMode >= 0) {
-                    swipeMode = changeSwipeMode;
-                }
-
+                int swipeMode = downSwipeMode;
                 if (swipeMode == SwipeListView.SWIPE_MODE_NONE) {
                     deltaMode = 0;
                 } else if (swipeMode != SwipeListView.SWIPE_MODE_BOTH) {
-                    if (opened.get(downPosition)) {
+                    if (states.isOpened(downPosition)) {
                         if (swipeMode == SwipeListView.SWIPE_MODE_LEFT && deltaX < 0) {
                             deltaMode = 0;
                         } else if (swipeMode == SwipeListView.SWIPE_MODE_RIGHT && deltaX > 0) {
@@ -913,11 +1434,14 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
                         }
                     }
                 }
-                if (deltaMode > slop && swipeCurrentAction == SwipeListView.SWIPE_ACTION_NONE && velocityY < velocityX) {
+                // The velocity is only computed while the swipe direction is not known yet.
+                if (deltaMode > slop && swipeCurrentAction == SwipeListView.SWIPE_ACTION_NONE && isVelocityHorizontal()) {
                     swiping = true;
                     swipingRight = (deltaX > 0);
-                    Log.d("SwipeListView", "deltaX: " + deltaX + " - swipingRight: " + swipingRight);
-                    if (opened.get(downPosition)) {
+                    if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.DEBUG)) {
+                        SwipeLogger.print(Log.DEBUG, "SwipeListView", "deltaX: " + deltaX + " - swipingRight: " + swipingRight);
+                    }
+                    if (states.isOpened(downPosition)) {
                         swipeListView.onStartClose(downPosition, swipingRight);
                         swipeCurrentAction = SwipeListView.SWIPE_ACTION_REVEAL;
                     } else {
@@ -939,24 +1463,75 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
                     cancelEvent.setAction(MotionEvent.ACTION_CANCEL |
                             (MotionEventCompat.getActionIndex(motionEvent) << MotionEventCompat.ACTION_POINTER_INDEX_SHIFT));
                     swipeListView.onTouchEvent(cancelEvent);
+                    cancelEvent.recycle();
                     if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
                         backView.setVisibility(View.GONE);
                     }
+                    promoteLayers();
                 }
 
                 if (swiping && downPosition != ListView.INVALID_POSITION) {
-                    if (opened.get(downPosition)) {
-                        deltaX += openedRight.get(downPosition) ? viewWidth - rightOffset : -viewWidth + leftOffset;
+                    if (states.isOpened(downPosition)) {
+                        deltaX += states.isOpenedRight(downPosition) ? viewWidth - rightOffset : -viewWidth + leftOffset;
                     }
-                    move(deltaX);
+                    requestMove(deltaX);
                     return true;
                 }
                 break;
             }
+
+            case MotionEvent.ACTION_CANCEL: {
+                if (metrics != null) {
+                    metrics.onCancel();
+                }
+                break;
+            }
         }
         return false;
     }
 
+    /**
+     * Computes the current velocity
+     *
+     * @return true if the horizontal velocity is greater than the vertical one
+     */
+    private boolean isVelocityHorizontal() {
+        velocityTracker.computeCurrentVelocity(1000);
+        return Math.abs(velocityTracker.getYVelocity()) < Math.abs(velocityTracker.getXVelocity());
+    }
+
+    /**
+     * Releases the velocity tracker, a new one is obtained on next touch
+     */
+    protected void recycleVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        trackingVelocity = false;
+    }
+
+    /**
+     * Finds the child under y with a binary search, the children of the list being laid out from top to bottom
+     *
+     * @param y coordinate in the list
+     * @return index of the child, or -1 if y is under the last child
+     */
+    private int findChildIndexAt(int y) {
+        int childCount = swipeListView.getChildCount();
+        int low = 0;
+        int high = childCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (swipeListView.getChildAt(middle).getBottom() <= y) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low < childCount ? low : -1;
+    }
+
     private void setActionsTo(int action) {
         oldSwipeActionRight = swipeActionRight;
         oldSwipeActionLeft = swipeActionLeft;
@@ -969,19 +1544,79 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
         swipeActionLeft = oldSwipeActionLeft;
     }
 
+    /**
+     * Moves the view now, or on next frame if moves are coalesced. The historical positions of the event are
+     * not needed: only the last position is displayed, and the velocity tracker already reads them.
+     *
+     * @param deltaX delta
+     */
+    private void requestMove(float deltaX) {
+        if (!swipeCoalesceMoves) {
+            move(deltaX);
+            return;
+        }
+        pendingDeltaX = deltaX;
+        if (!movePending) {
+            movePending = true;
+            ViewCompat.postOnAnimation(swipeListView, pendingMoveRunnable);
+        }
+    }
+
+    /**
+     * Applies the pending move now
+     */
+    private void flushPendingMove() {
+        if (movePending) {
+            swipeListView.removeCallbacks(pendingMoveRunnable);
+            movePending = false;
+            move(pendingDeltaX);
+        }
+    }
+
+    /**
+     * Drops the pending move
+     */
+    private void cancelPendingMove() {
+        if (movePending) {
+            swipeListView.removeCallbacks(pendingMoveRunnable);
+            movePending = false;
+        }
+    }
+
     /**
      * Moves the view
      *
      * @param deltaX delta
      */
     public void move(float deltaX) {
+        boolean traced = SwipeTrace.begin("SwipeListView.move");
+        try {
+            moveView(deltaX);
+        } finally {
+            if (traced) {
+                SwipeTrace.end();
+            }
+        }
+    }
+
+    /**
+     * Moves the view, in the trace section of {@link #move(float)}
+     *
+     * @param deltaX delta
+     */
+    private void moveView(float deltaX) {
+        if (metrics != null) {
+            metrics.onMove();
+        }
         swipeListView.onMove(downPosition, deltaX);
-        float posX = ViewHelper.getX(frontView);
-        if (opened.get(downPosition)) {
-            posX += openedRight.get(downPosition) ? -viewWidth + rightOffset : viewWidth - leftOffset;
+        float posX = backend.getX(frontView);
+        if (states.isOpened(downPosition)) {
+            posX += states.isOpenedRight(downPosition) ? -viewWidth + rightOffset : viewWidth - leftOffset;
         }
         if (posX > 0 && !swipingRight) {
-            Log.d("SwipeListView", "change to right");
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.DEBUG)) {
+                SwipeLogger.print(Log.DEBUG, "SwipeListView", "change to right");
+            }
             swipingRight = !swipingRight;
             swipeCurrentAction = swipeActionRight;
             if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
@@ -991,7 +1626,9 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             }
         }
         if (posX < 0 && swipingRight) {
-            Log.d("SwipeListView", "change to left");
+            if (SwipeLogger.ENABLED && SwipeLogger.isEnabled(Log.DEBUG)) {
+                SwipeLogger.print(Log.DEBUG, "SwipeListView", "change to left");
+            }
             swipingRight = !swipingRight;
             swipeCurrentAction = swipeActionLeft;
             if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
@@ -1001,18 +1638,18 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
             }
         }
         if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_DISMISS) {
-            setTranslationX(parentView, deltaX);
-            setAlpha(parentView, Math.max(0f, Math.min(1f,
+            backend.setTranslationX(parentView, deltaX);
+            backend.setAlpha(parentView, Math.max(0f, Math.min(1f,
                     1f - 2f * Math.abs(deltaX) / viewWidth)));
         } else if (swipeCurrentAction == SwipeListView.SWIPE_ACTION_CHOICE) {
             if ((swipingRight && deltaX > 0 && posX < DISPLACE_CHOICE)
                     || (!swipingRight && deltaX < 0 && posX > -DISPLACE_CHOICE)
                     || (swipingRight && deltaX < DISPLACE_CHOICE)
                     || (!swipingRight && deltaX > -DISPLACE_CHOICE)) {
-                setTranslationX(frontView, deltaX);
+                backend.setTranslationX(frontView, deltaX);
             }
         } else {
-            setTranslationX(frontView, deltaX);
+            backend.setTranslationX(frontView, deltaX);
         }
     }
 
@@ -1022,6 +1659,13 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     class PendingDismissData implements Comparable<PendingDismissData> {
         public int position;
         public View view;
+        // Height of the view when its collapse started, and its layout height to restore after the dismiss
+        int originalHeight;
+        int originalLayoutHeight;
+        // Play time of the collapse animator when this view joined it
+        long startTime;
+        // True once its collapse ended, while other dismisses hold the commit back
+        boolean collapsed;
 
         public PendingDismissData(int position, View view) {
             this.position = position;
@@ -1038,63 +1682,143 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     /**
      * Perform dismiss action
      *
-     * @param dismissView     View
-     * @param dismissPosition Position of list
+     * @param dismissView      View
+     * @param dismissPosition  Position of list
+     * @param doPendingDismiss true if the swipe animation already counted this dismiss
      */
     protected void performDismiss(final View dismissView, final int dismissPosition, boolean doPendingDismiss) {
-        enableDisableViewGroup((ViewGroup) dismissView, false);
-        final ViewGroup.LayoutParams lp = dismissView.getLayoutParams();
-        final int originalHeight = dismissView.getHeight();
+        boolean traced = SwipeTrace.begin("SwipeListView.performDismiss");
+        try {
+            startCollapse(dismissView, dismissPosition, doPendingDismiss);
+        } finally {
+            if (traced) {
+                SwipeTrace.end();
+            }
+        }
+    }
 
-        ValueAnimator animator = ValueAnimator.ofInt(originalHeight, 1).setDuration(animationTime);
+    /**
+     * Starts the collapse of a dismissed view, in the trace section of {@link #performDismiss(View, int, boolean)}
+     */
+    private void startCollapse(View dismissView, int dismissPosition, boolean doPendingDismiss) {
+        if (dismissView.getTag(R.id.swipelistview__dismiss_animation) != null) {
+            // Already collapsing.
+            if (doPendingDismiss) {
+                --dismissAnimationRefCount;
+            }
+            return;
+        }
+        if (!doPendingDismiss) {
+            ++dismissAnimationRefCount;
+        }
+        enableDisableViewGroup((ViewGroup) dismissView, false);
+        if (swipeClosesAllItemsWhenListMoves) {
+            closeOpenedItems();
+        }
+        PendingDismissData pendingDismiss = new PendingDismissData(dismissPosition, dismissView);
+        pendingDismiss.originalHeight = dismissView.getHeight();
+        pendingDismiss.originalLayoutHeight = dismissView.getLayoutParams().height;
+        dismissView.setTag(R.id.swipelistview__dismiss_animation, pendingDismiss);
+        pendingDismisses.add(pendingDismiss);
+        collapseAnimation.add(pendingDismiss);
+    }
 
-        if (doPendingDismiss) {
-            animator.addListener(new AnimatorListenerAdapter() {
+    /**
+     * Collapse of the dismissed views. One animator drives all the views collapsing at the same time, each one
+     * from its own height and start time, and the dismisses are committed together when it ends.
+     */
+    private class CollapseAnimation implements SwipeAnimationBackend.TickListener {
+        private final SwipeAnimationBackend.Ticker ticker;
+        private final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+        private final List<PendingDismissData> collapsing = new ArrayList<PendingDismissData>();
+        private boolean translate;
+        private boolean running;
+
+        CollapseAnimation() {
+            ticker = backend.createTicker(this);
+        }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    --dismissAnimationRefCount;
-                    if (dismissAnimationRefCount == 0) {
-                        removePendingDismisses(originalHeight);
-                    }
-                }
-            });
+        void add(PendingDismissData pendingDismiss) {
+            if (running) {
+                // Runs until the last view has collapsed.
+                pendingDismiss.startTime = ticker.getPlayTime();
+                ticker.setDuration(Math.max(ticker.getDuration(), pendingDismiss.startTime + animationTime));
+                collapsing.add(pendingDismiss);
+            } else {
+                pendingDismiss.startTime = 0;
+                collapsing.add(pendingDismiss);
+                translate = swipeDismissCollapse == SwipeListView.SWIPE_DISMISS_COLLAPSE_TRANSLATE;
+                running = true;
+                ticker.start(animationTime);
+            }
         }
 
-        animator.addListener(new AnimatorListenerAdapter() {
+        /**
+         * @return height of a view at play time
+         */
+        private int heightAt(PendingDismissData pendingDismiss, long playTime) {
+            if (pendingDismiss.collapsed) {
+                return 1;
+            }
+            float fraction = Math.min(1f, Math.max(0f, (float) (playTime - pendingDismiss.startTime) / animationTime));
+            return pendingDismiss.originalHeight - (int) ((pendingDismiss.originalHeight - 1) * interpolator.getInterpolation(fraction));
+        }
 
-            @Override
-            public void onAnimationStart(Animator animation) {
-                super.onAnimationStart(animation);
-                if (swipeClosesAllItemsWhenListMoves) {
-                    closeOpenedItems();
+        @Override
+        public void onTick(long playTime) {
+            if (translate) {
+                translateChildren(playTime);
+            } else {
+                for (int i = collapsing.size() - 1; i >= 0; i--) {
+                    PendingDismissData pendingDismiss = collapsing.get(i);
+                    ViewGroup.LayoutParams lp = pendingDismiss.view.getLayoutParams();
+                    lp.height = heightAt(pendingDismiss, playTime);
+                    pendingDismiss.view.setLayoutParams(lp);
                 }
-
             }
+        }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-
-                // Update the model after animation finish.
-                opened.remove(dismissPosition);
-                openedRight.remove(dismissPosition);
-                checked.remove(dismissPosition);
+        /**
+         * Moves up each child by the height collapsed above it, without layout.
+         */
+        private void translateChildren(long playTime) {
+            int collapsed = 0;
+            for (int i = 0; i < swipeListView.getChildCount(); i++) {
+                View child = swipeListView.getChildAt(i);
+                backend.setTranslationY(child, -collapsed);
+                Object tag = child.getTag(R.id.swipelistview__dismiss_animation);
+                if (tag != null) {
+                    PendingDismissData pendingDismiss = (PendingDismissData) tag;
+                    int height = heightAt(pendingDismiss, playTime);
+                    collapsed += pendingDismiss.originalHeight - height;
+                    backend.setAlpha(child, Math.min(backend.getAlpha(child), (float) height / pendingDismiss.originalHeight));
+                }
+            }
+        }
 
+        @Override
+        public void onTickerEnd() {
+            running = false;
+            for (int i = collapsing.size() - 1; i >= 0; i--) {
+                // The play time restarts with the next collapse, this view must stay collapsed until the commit.
+                collapsing.get(i).collapsed = true;
                 // Re enable user interraction.
-                enableDisableViewGroup((ViewGroup) dismissView, true);
+                enableDisableViewGroup((ViewGroup) collapsing.get(i).view, true);
             }
-        });
-
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                lp.height = (Integer) valueAnimator.getAnimatedValue();
-                dismissView.setLayoutParams(lp);
+            dismissAnimationRefCount -= collapsing.size();
+            collapsing.clear();
+            if (dismissAnimationRefCount <= 0) {
+                dismissAnimationRefCount = 0;
+                removePendingDismisses();
             }
-        });
+        }
+    }
 
-        pendingDismisses.add(new PendingDismissData(dismissPosition, dismissView));
-        animator.start();
+    /**
+     * @return true while dismissed items are collapsing or about to collapse
+     */
+    protected boolean isDismissAnimating() {
+        return dismissAnimationRefCount > 0;
     }
 
     /**
@@ -1105,26 +1829,29 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
     }
 
     /**
-     * Will call {@link #removePendingDismisses(int)} in animationTime + 100 ms.
-     * @param originalHeight will be used to rest the cells height.
+     * Will delete all pending dismisses.
+     * Will remove the states of all pending dismisses in one pass.
+     * Will call callback onDismiss once for all pending dismisses.
+     * Will reset all cell heights to their height before animation.
      */
-    protected void handlerPendingDismisses(final int originalHeight) {
-        Handler handler = new Handler();
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                removePendingDismisses(originalHeight);
+    protected void removePendingDismisses() {
+        boolean traced = SwipeTrace.begin("SwipeListView.removePendingDismisses");
+        try {
+            commitPendingDismisses();
+        } finally {
+            if (traced) {
+                SwipeTrace.end();
             }
-        }, animationTime + 100);
+        }
     }
 
     /**
-     * Will delete all pending dismisses.
-     * Will call callback onDismiss for all pending dismisses.
-     * Will reset all cell height to originalHeight.
-     * @param originalHeight is the height of the cell before animation.
+     * Commits the pending dismisses, in the trace section of {@link #removePendingDismisses()}
      */
-    private void removePendingDismisses(int originalHeight) {
+    private void commitPendingDismisses() {
+        if (pendingDismisses.isEmpty()) {
+            return;
+        }
         // No active animations, process all pending dismisses.
         // Sort by descending position
         Collections.sort(pendingDismisses);
@@ -1133,17 +1860,36 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
         for (int i = pendingDismisses.size() - 1; i >= 0; i--) {
             dismissPositions[i] = pendingDismisses.get(i).position;
         }
-        swipeListView.onDismiss(dismissPositions);
+        boolean undoable = swipeUndoMaxPending > 0;
+        if (undoable) {
+            queueDismisses(dismissPositions);
+        } else {
+            // Update the model before the listener removes the items from the adapter.
+            states.removePositions(dismissPositions);
+            swipeListView.onDismiss(dismissPositions);
+        }
 
         ViewGroup.LayoutParams lp;
         for (PendingDismissData pendingDismiss : pendingDismisses) {
             // Reset view presentation
             if (pendingDismiss.view != null) {
-                setAlpha(pendingDismiss.view, 1f);
-                setTranslationX(pendingDismiss.view, 0);
-                lp = pendingDismiss.view.getLayoutParams();
-                lp.height = originalHeight;
-                pendingDismiss.view.setLayoutParams(lp);
+                pendingDismiss.view.setTag(R.id.swipelistview__dismiss_animation, null);
+                backend.setTranslationX(pendingDismiss.view, 0);
+                if (undoable) {
+                    hideDismissedView(pendingDismiss.view, pendingDismiss.originalLayoutHeight);
+                } else {
+                    backend.setAlpha(pendingDismiss.view, 1f);
+                    lp = pendingDismiss.view.getLayoutParams();
+                    lp.height = pendingDismiss.originalLayoutHeight;
+                    pendingDismiss.view.setLayoutParams(lp);
+                }
+            }
+        }
+
+        if (swipeDismissCollapse == SwipeListView.SWIPE_DISMISS_COLLAPSE_TRANSLATE) {
+            // The adapter change lays out the children at their final position.
+            for (int i = swipeListView.getChildCount() - 1; i >= 0; i--) {
+                backend.setTranslationY(swipeListView.getChildAt(i), 0);
             }
         }
 
@@ -1151,6 +1897,124 @@ public class SwipeListViewTouchListener implements View.OnTouchListener {
 
     }
 
+    /**
+     * Keeps dismissed positions until their commit, committing the oldest ones over swipeUndoMaxPending
+     *
+     * @param dismissPositions dismissed positions, sorted by descending position
+     */
+    private void queueDismisses(int[] dismissPositions) {
+        // The hidden rows leave the selection and the opened rows until they are committed or undone.
+        int[] dismissStates = new int[dismissPositions.length];
+        ListAdapter adapter = swipeListView.getAdapter();
+        long[] dismissIds = adapter != null && adapter.hasStableIds() ? new long[dismissPositions.length] : null;
+        for (int i = 0; i < dismissPositions.length; i++) {
+            dismissStates[i] = states.getStates(dismissPositions[i]);
+            states.setStates(dismissPositions[i], 0);
+            if (dismissIds != null) {
+                dismissIds[i] = adapter.getItemId(dismissPositions[i]);
+            }
+        }
+        undoQueue.add(dismissPositions, dismissStates, dismissIds);
+        while (undoQueue.getEntryCount() > swipeUndoMaxPending) {
+            int[] committed = undoQueue.takeOldest();
+            states.removePositions(committed);
+            swipeListView.onDismiss(committed);
+        }
+        swipeListView.removeCallbacks(commitDismissesRunnable);
+        swipeListView.postDelayed(commitDismissesRunnable, swipeUndoTimeout);
+    }
+
+    /**
+     * Commits the dismisses waiting for undo, with one onDismiss call
+     */
+    protected void commitDismisses() {
+        if (undoQueue.isEmpty()) {
+            return;
+        }
+        swipeListView.removeCallbacks(commitDismissesRunnable);
+        int[] dismissPositions = undoQueue.takeAll();
+        states.removePositions(dismissPositions);
+        swipeListView.onDismiss(dismissPositions);
+        // The children are bound again by the layout following the adapter change.
+        for (int i = swipeListView.getChildCount() - 1; i >= 0; i--) {
+            showDismissedView(swipeListView.getChildAt(i));
+        }
+    }
+
+    /**
+     * Shows again the items of the last dismiss waiting for undo
+     *
+     * @return false if there is no dismiss to undo
+     */
+    protected boolean undoDismiss() {
+        if (undoQueue.isEmpty()) {
+            return false;
+        }
+        int lastCount = getCountSelected();
+        int[] positionStates = undoQueue.getNewestStates();
+        int[] positions = undoQueue.takeNewest();
+        for (int i = 0; i < positions.length; i++) {
+            states.setStates(positions[i], positionStates[i]);
+        }
+        if (lastCount == 0 && getCountSelected() > 0) {
+            // Selected rows dismissed together are selected again.
+            setActionsTo(SwipeListView.SWIPE_ACTION_CHOICE);
+        }
+        int first = swipeListView.getFirstVisiblePosition();
+        for (int position : positions) {
+            View child = position >= first ? swipeListView.getChildAt(position - first) : null;
+            if (child != null) {
+                showDismissedView(child);
+                // The cell may have been bound again while hidden, without the restored states.
+                reloadSwipeStateInView(getFrontView(child), position);
+                reloadChoiceStateInView(getFrontView(child), position);
+            }
+        }
+        if (undoQueue.isEmpty()) {
+            swipeListView.removeCallbacks(commitDismissesRunnable);
+        }
+        return true;
+    }
+
+    /**
+     * Hides the cell of a dismissed item waiting for undo, or shows a cell hidden for another item
+     *
+     * @param view     cell
+     * @param position position in list
+     */
+    protected void reloadDismissStateInView(View view, int position) {
+        if (!undoQueue.isEmpty() && undoQueue.contains(position)) {
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            hideDismissedView(view, lp != null ? lp.height : ViewGroup.LayoutParams.WRAP_CONTENT);
+        } else {
+            showDismissedView(view);
+        }
+    }
+
+    private void hideDismissedView(View view, int layoutHeight) {
+        if (view.getTag(R.id.swipelistview__hidden_layout_height) == null) {
+            view.setTag(R.id.swipelistview__hidden_layout_height, layoutHeight);
+        }
+        backend.setAlpha(view, 0f);
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        if (lp == null) {
+            lp = new AbsListView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 1);
+        }
+        lp.height = 1;
+        view.setLayoutParams(lp);
+    }
+
+    private void showDismissedView(View view) {
+        Object layoutHeight = view.getTag(R.id.swipelistview__hidden_layout_height);
+        if (layoutHeight != null) {
+            view.setTag(R.id.swipelistview__hidden_layout_height, null);
+            backend.setAlpha(view, 1f);
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            lp.height = (Integer) layoutHeight;
+            view.setLayoutParams(lp);
+        }
+    }
+
     public static void enableDisableViewGroup(ViewGroup viewGroup, boolean enabled) {
         int childCount = viewGroup.getChildCount();
         for (int i = 0; i < childCount; i++) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.util.Log;
+
+/**
+ * Logger of the SwipeListView events.
+ * <p/>
+ * Call sites test {@link #ENABLED} before anything else, so in release builds of the library the compiler
+ * removes the logging calls along with the building of their messages.
+ */
+public abstract class SwipeLogger {
+
+    /**
+     * False in release builds of the library
+     */
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    /**
+     * Logger writing all the events to logcat
+     */
+    public static final SwipeLogger LOGCAT = new SwipeLogger() {
+        @Override
+        public boolean isLoggable(int level) {
+            return true;
+        }
+
+        @Override
+        public void log(int level, String tag, String message) {
+            Log.println(level, tag, message);
+        }
+    };
+
+    private static SwipeLogger logger = LOGCAT;
+
+    /**
+     * Sets the logger used by all SwipeListView
+     *
+     * @param logger logger, null to disable logging
+     */
+    public static void setLogger(SwipeLogger logger) {
+        SwipeLogger.logger = logger;
+    }
+
+    /**
+     * @param level log level, as in {@link android.util.Log}
+     * @return true if the messages of this level are logged
+     */
+    static boolean isEnabled(int level) {
+        return ENABLED && logger != null && logger.isLoggable(level);
+    }
+
+    /**
+     * Logs a message. Guard the call with {@link #ENABLED} and {@link #isEnabled(int)}.
+     *
+     * @param level   log level, as in {@link android.util.Log}
+     * @param tag     tag
+     * @param message message
+     */
+    static void print(int level, String tag, String message) {
+        logger.log(level, tag, message);
+    }
+
+    /**
+     * @param level log level, as in {@link android.util.Log}
+     * @return true if the messages of this level should be logged
+     */
+    public abstract boolean isLoggable(int level);
+
+    /**
+     * @param level   log level, as in {@link android.util.Log}
+     * @param tag     tag
+     * @param message message
+     */
+    public abstract void log(int level, String tag, String message);
+}
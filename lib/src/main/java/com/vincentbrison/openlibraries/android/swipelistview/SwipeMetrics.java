@@ -0,0 +1,291 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.WindowManager;
+
+/**
+ * Timing of the swipe gestures of a SwipeListView, set with {@link SwipeListView#setSwipeMetrics(SwipeMetrics)}.
+ * <p/>
+ * A gesture starts when an item is touched and ends when it settles after release. Gestures which do not swipe
+ * are not measured. The values of the last gesture are available from {@link Listener#onGestureMeasured(SwipeMetrics)}
+ * and every gesture is added to fixed bucket histograms. Frames are only counted from API 16.
+ */
+public class SwipeMetrics {
+
+    /**
+     * Notified when a gesture is measured, on the UI thread
+     */
+    public interface Listener {
+        void onGestureMeasured(SwipeMetrics metrics);
+    }
+
+    private final Listener listener;
+
+    private final Histogram latencyHistogram = new Histogram(new int[]{8, 16, 33, 50, 100, 200, 500});
+    private final Histogram settleHistogram = new Histogram(new int[]{100, 200, 300, 500, 1000});
+    private final Histogram droppedFramesHistogram = new Histogram(new int[]{0, 1, 2, 4, 8, 16});
+
+    private FrameCounter frameCounter;
+
+    // Gesture being measured, 0 if none
+    private int gesture;
+    private int gestureCount;
+    private long downTime;
+    private long releaseTime;
+    private boolean moved;
+    private boolean released;
+
+    private int lastAction = SwipeListView.SWIPE_ACTION_NONE;
+    private boolean lastSwap;
+    private long lastLatency;
+    private long lastSettleDuration;
+    private int lastFrames = -1;
+    private int lastDroppedFrames = -1;
+
+    /**
+     * @param listener notified after each gesture, can be null
+     */
+    public SwipeMetrics(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return histogram of the delays between touch down and first move of the item, in milliseconds
+     */
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * @return histogram of the durations between release and end of the settle animation, in milliseconds
+     */
+    public Histogram getSettleHistogram() {
+        return settleHistogram;
+    }
+
+    /**
+     * @return histogram of the frames dropped during drag and settle, empty below API 16
+     */
+    public Histogram getDroppedFramesHistogram() {
+        return droppedFramesHistogram;
+    }
+
+    /**
+     * @return action of the last gesture, as {@link SwipeListView#SWIPE_ACTION_REVEAL}
+     */
+    public int getLastAction() {
+        return lastAction;
+    }
+
+    /**
+     * @return true if the last gesture changed the state of the item, false if the item went back
+     */
+    public boolean isLastSwap() {
+        return lastSwap;
+    }
+
+    /**
+     * @return delay between touch down and first move of the item in the last gesture, in milliseconds
+     */
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * @return duration between release and end of the settle animation in the last gesture, in milliseconds
+     */
+    public long getLastSettleDuration() {
+        return lastSettleDuration;
+    }
+
+    /**
+     * @return frames rendered during drag and settle of the last gesture, -1 below API 16
+     */
+    public int getLastFrames() {
+        return lastFrames;
+    }
+
+    /**
+     * @return frames dropped during drag and settle of the last gesture, -1 below API 16
+     */
+    public int getLastDroppedFrames() {
+        return lastDroppedFrames;
+    }
+
+    /**
+     * Clears the histograms
+     */
+    public void reset() {
+        latencyHistogram.clear();
+        settleHistogram.clear();
+        droppedFramesHistogram.clear();
+    }
+
+    void attach(Context context) {
+        if (frameCounter == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            float refreshRate = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getRefreshRate();
+            frameCounter = new FrameCounter((long) (1000000000L / (refreshRate > 0 ? refreshRate : 60)));
+        }
+    }
+
+    /**
+     * @param eventTime time of the down event, in {@link SystemClock#uptimeMillis()} base
+     */
+    void onDown(long eventTime) {
+        if (frameCounter != null) {
+            frameCounter.stop();
+        }
+        gesture = ++gestureCount == 0 ? ++gestureCount : gestureCount;
+        downTime = eventTime;
+        moved = false;
+        released = false;
+    }
+
+    void onMove() {
+        if (gesture != 0 && !moved) {
+            moved = true;
+            lastLatency = SystemClock.uptimeMillis() - downTime;
+            if (frameCounter != null) {
+                frameCounter.start();
+            }
+        }
+    }
+
+    /**
+     * @param action action of the gesture
+     * @param swap   true if the item changes state
+     * @return gesture to pass to {@link #onSettled(int)}, 0 if not measured
+     */
+    int onRelease(int action, boolean swap) {
+        if (gesture == 0 || !moved) {
+            stop();
+            return 0;
+        }
+        released = true;
+        releaseTime = SystemClock.uptimeMillis();
+        lastAction = action;
+        lastSwap = swap;
+        return gesture;
+    }
+
+    /**
+     * Abandons the gesture if it was not released. A released gesture is still measured until it settles.
+     */
+    void onCancel() {
+        if (!released) {
+            stop();
+        }
+    }
+
+    /**
+     * Abandons the gesture in progress and stops counting frames
+     */
+    void stop() {
+        gesture = 0;
+        if (frameCounter != null) {
+            frameCounter.stop();
+        }
+    }
+
+    /**
+     * @param gesture gesture returned by {@link #onRelease(int, boolean)}
+     */
+    void onSettled(int gesture) {
+        if (gesture == 0 || gesture != this.gesture) {
+            // A new gesture started before the end of this one.
+            return;
+        }
+        this.gesture = 0;
+        lastSettleDuration = SystemClock.uptimeMillis() - releaseTime;
+        latencyHistogram.add(lastLatency);
+        settleHistogram.add(lastSettleDuration);
+        if (frameCounter != null) {
+            frameCounter.stop();
+            lastFrames = frameCounter.getFrames();
+            lastDroppedFrames = frameCounter.getDroppedFrames();
+            droppedFramesHistogram.add(lastDroppedFrames);
+        }
+        if (listener != null) {
+            listener.onGestureMeasured(this);
+        }
+    }
+
+    /**
+     * Counts of values in fixed buckets. Bucket i holds the values up to its upper bound and above the bound of
+     * bucket i - 1, the last bucket holds the values above all bounds.
+     */
+    public static class Histogram {
+        private final int[] upperBounds;
+        private final long[] counts;
+
+        Histogram(int[] upperBounds) {
+            this.upperBounds = upperBounds;
+            counts = new long[upperBounds.length + 1];
+        }
+
+        /**
+         * @return number of buckets
+         */
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * @param bucket bucket index
+         * @return upper bound of the bucket, {@link Integer#MAX_VALUE} for the last one
+         */
+        public int getUpperBound(int bucket) {
+            return bucket < upperBounds.length ? upperBounds[bucket] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * @param bucket bucket index
+         * @return number of values in the bucket
+         */
+        public long getCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * @return number of values
+         */
+        public long getTotalCount() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        void add(long value) {
+            int bucket = 0;
+            while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+
+        void clear() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,689 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.widget.Adapter;
+
+import java.util.Arrays;
+
+/**
+ * Swipe state of the rows (opened, opened to the right and checked), packed as bits in long words.
+ * Each row costs three bits instead of three boxed references.
+ * <p/>
+ * When the adapter has stable ids, the state of each row is also kept by item id, so that it follows
+ * the items when the data set changes.
+ */
+class SwipeStateStore {
+
+    private static final int FLAG_OPENED = 1;
+    private static final int FLAG_OPENED_RIGHT = 1 << 1;
+    private static final int FLAG_CHECKED = 1 << 2;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    private long[] opened = new long[0];
+    private long[] openedRight = new long[0];
+    private long[] checked = new long[0];
+
+    private int size = 0;
+    private int checkedCount = 0;
+
+    /**
+     * Opened positions, oldest first
+     */
+    private int[] openedPositions = new int[4];
+    private int openedCount = 0;
+
+    /**
+     * Adapter providing the item ids, null if the adapter has no stable ids
+     */
+    private Adapter stableIdAdapter;
+    private LongIntMap idStates = new LongIntMap();
+    private LongIntMap remapIdStates = new LongIntMap();
+
+    /**
+     * True if id states were restored before the adapter was set
+     */
+    private boolean idStatesRestored = false;
+
+    /**
+     * @return number of rows tracked
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows tracked. Rows over the new size are cleared.
+     *
+     * @param newSize number of rows
+     */
+    void setSize(int newSize) {
+        if (newSize < size) {
+            checkedCount -= countRange(checked, newSize, size);
+            removeOpenedPositions(newSize, size - newSize);
+            clearRange(opened, newSize, size);
+            clearRange(openedRight, newSize, size);
+            clearRange(checked, newSize, size);
+        } else {
+            ensureCapacity(newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Updates the store after the adapter content changed.
+     * With stable ids, the states are moved to the new positions of their items in a single pass over the
+     * adapter. Otherwise the states stay at their positions and only the size is updated.
+     *
+     * @param adapter adapter of the list
+     */
+    void sync(Adapter adapter) {
+        int count = adapter.getCount();
+        if (!adapter.hasStableIds()) {
+            stableIdAdapter = null;
+            idStates.clear();
+            setSize(count);
+        } else if (adapter != stableIdAdapter) {
+            stableIdAdapter = adapter;
+            if (idStatesRestored) {
+                idStatesRestored = false;
+                remapStableIds(count);
+                return;
+            }
+            // New adapter: keep the states at their positions and start tracking them by id.
+            idStates.clear();
+            setSize(count);
+            for (int i = 0; i < size; i++) {
+                putIdState(i);
+            }
+        } else {
+            remapStableIds(count);
+        }
+    }
+
+    boolean isOpened(int position) {
+        return get(opened, position);
+    }
+
+    void setOpened(int position, boolean value) {
+        if (position < 0 || position >= size) {
+            return;
+        }
+        if (get(opened, position) != value) {
+            if (value) {
+                addOpenedPosition(position);
+            } else {
+                removeOpenedPosition(position);
+            }
+        }
+        set(opened, position, value);
+        putIdState(position);
+    }
+
+    /**
+     * @param position position
+     * @return opened, opened to the right and checked states of the row, packed for {@link #setStates(int, int)}
+     */
+    int getStates(int position) {
+        int flags = 0;
+        if (get(opened, position)) {
+            flags |= FLAG_OPENED;
+        }
+        if (get(openedRight, position)) {
+            flags |= FLAG_OPENED_RIGHT;
+        }
+        if (get(checked, position)) {
+            flags |= FLAG_CHECKED;
+        }
+        return flags;
+    }
+
+    /**
+     * @param position position
+     * @param flags    states returned by {@link #getStates(int)}, 0 to clear them
+     */
+    void setStates(int position, int flags) {
+        setOpened(position, (flags & FLAG_OPENED) != 0);
+        setOpenedRight(position, (flags & FLAG_OPENED_RIGHT) != 0);
+        setChecked(position, (flags & FLAG_CHECKED) != 0);
+    }
+
+    /**
+     * @return number of opened rows
+     */
+    int getOpenedCount() {
+        return openedCount;
+    }
+
+    /**
+     * @param index index between 0 and {@link #getOpenedCount()}, 0 being the row opened first
+     * @return position of the opened row
+     */
+    int getOpenedPosition(int index) {
+        return openedPositions[index];
+    }
+
+    boolean isOpenedRight(int position) {
+        return get(openedRight, position);
+    }
+
+    void setOpenedRight(int position, boolean value) {
+        set(openedRight, position, value);
+        putIdState(position);
+    }
+
+    boolean isChecked(int position) {
+        return get(checked, position);
+    }
+
+    void setChecked(int position, boolean value) {
+        if (position < 0 || position >= size || get(checked, position) == value) {
+            return;
+        }
+        set(checked, position, value);
+        checkedCount += value ? 1 : -1;
+        putIdState(position);
+    }
+
+    /**
+     * @return number of checked rows
+     */
+    int getCheckedCount() {
+        return checkedCount;
+    }
+
+    /**
+     * Returns the first checked position at or after from. Skips unchecked rows 64 at a time.
+     *
+     * @param from first position to look at
+     * @return checked position, or -1 if there is none
+     */
+    int nextChecked(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= size || checkedCount == 0) {
+            return -1;
+        }
+        int wordIndex = from >>> ADDRESS_BITS_PER_WORD;
+        long word = checked[wordIndex] & (WORD_MASK << from);
+        int lastWord = (size - 1) >>> ADDRESS_BITS_PER_WORD;
+        while (word == 0) {
+            if (++wordIndex > lastWord) {
+                return -1;
+            }
+            word = checked[wordIndex];
+        }
+        return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Unchecks all rows
+     */
+    void clearChecked() {
+        clearRange(checked, 0, size);
+        checkedCount = 0;
+        if (idStates.size() > 0) {
+            remapIdStates.clear();
+            for (int slot = 0; slot < idStates.capacity(); slot++) {
+                if (idStates.valueAt(slot) != 0) {
+                    remapIdStates.put(idStates.keyAt(slot), idStates.valueAt(slot) & ~FLAG_CHECKED);
+                }
+            }
+            swapIdStates();
+        }
+    }
+
+    /**
+     * Inserts count unset rows at position, shifting the following rows.
+     *
+     * @param position first inserted position
+     * @param count    number of rows inserted
+     */
+    void insert(int position, int count) {
+        if (count <= 0 || position < 0 || position > size) {
+            return;
+        }
+        ensureCapacity(size + count);
+        for (int i = 0; i < openedCount; i++) {
+            if (openedPositions[i] >= position) {
+                openedPositions[i] += count;
+            }
+        }
+        shiftUp(opened, position, count, size);
+        shiftUp(openedRight, position, count, size);
+        shiftUp(checked, position, count, size);
+        size += count;
+    }
+
+    /**
+     * Removes count rows from position, shifting the following rows.
+     *
+     * @param position first removed position
+     * @param count    number of rows removed
+     */
+    void remove(int position, int count) {
+        if (position < 0 || position >= size) {
+            return;
+        }
+        count = Math.min(count, size - position);
+        if (count <= 0) {
+            return;
+        }
+        checkedCount -= countRange(checked, position, position + count);
+        removeOpenedPositions(position, count);
+        shiftDown(opened, position, count, size);
+        shiftDown(openedRight, position, count, size);
+        shiftDown(checked, position, count, size);
+        size -= count;
+    }
+
+    /**
+     * Rebuilds the positional states from the id states, reading each item id once.
+     */
+    private void remapStableIds(int count) {
+        clearRange(opened, 0, size);
+        clearRange(openedRight, 0, size);
+        clearRange(checked, 0, size);
+        checkedCount = 0;
+        openedCount = 0;
+        setSize(count);
+        int remaining = idStates.size();
+        if (remaining == 0) {
+            return;
+        }
+        remapIdStates.clear();
+        for (int i = 0; i < count && remaining > 0; i++) {
+            long id = stableIdAdapter.getItemId(i);
+            int flags = idStates.get(id);
+            if (flags != 0 && remapIdStates.get(id) == 0) {
+                if ((flags & FLAG_OPENED) != 0) {
+                    set(opened, i, true);
+                    addOpenedPosition(i);
+                }
+                set(openedRight, i, (flags & FLAG_OPENED_RIGHT) != 0);
+                if ((flags & FLAG_CHECKED) != 0) {
+                    set(checked, i, true);
+                    checkedCount++;
+                }
+                remapIdStates.put(id, flags);
+                remaining--;
+            }
+        }
+        // Items no longer in the adapter are dropped.
+        swapIdStates();
+    }
+
+    /**
+     * Records the state of position under the id of its item, if the adapter has stable ids.
+     */
+    private void putIdState(int position) {
+        if (stableIdAdapter == null || position < 0 || position >= size) {
+            return;
+        }
+        idStates.put(stableIdAdapter.getItemId(position), getStates(position));
+    }
+
+    private void addOpenedPosition(int position) {
+        if (openedCount == openedPositions.length) {
+            int[] newPositions = new int[openedCount * 2];
+            System.arraycopy(openedPositions, 0, newPositions, 0, openedCount);
+            openedPositions = newPositions;
+        }
+        openedPositions[openedCount++] = position;
+    }
+
+    private void removeOpenedPosition(int position) {
+        for (int i = 0; i < openedCount; i++) {
+            if (openedPositions[i] == position) {
+                System.arraycopy(openedPositions, i + 1, openedPositions, i, openedCount - i - 1);
+                openedCount--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the opened positions in [position, position + count) and shifts the following ones.
+     */
+    private void removeOpenedPositions(int position, int count) {
+        int kept = 0;
+        for (int i = 0; i < openedCount; i++) {
+            int openedPosition = openedPositions[i];
+            if (openedPosition < position) {
+                openedPositions[kept++] = openedPosition;
+            } else if (openedPosition >= position + count) {
+                openedPositions[kept++] = openedPosition - count;
+            }
+        }
+        openedCount = kept;
+    }
+
+    private void swapIdStates() {
+        LongIntMap swap = idStates;
+        idStates = remapIdStates;
+        remapIdStates = swap;
+    }
+
+    /**
+     * Copies the states into state. With stable ids, only the ids of the rows with a state are saved, the
+     * positional words are left null.
+     *
+     * @param state state to save into
+     */
+    void saveState(SwipeListView.SavedState state) {
+        state.stateCount = size;
+        if (stableIdAdapter != null) {
+            state.openedStates = null;
+            state.openedRightStates = null;
+            state.checkedStates = null;
+            state.itemIds = new long[idStates.size()];
+            state.itemStates = new int[idStates.size()];
+            int index = 0;
+            for (int slot = 0; slot < idStates.capacity(); slot++) {
+                if (idStates.valueAt(slot) != 0) {
+                    state.itemIds[index] = idStates.keyAt(slot);
+                    state.itemStates[index] = idStates.valueAt(slot);
+                    index++;
+                }
+            }
+        } else {
+            int words = wordCount(size);
+            state.openedStates = Arrays.copyOf(opened, words);
+            state.openedRightStates = Arrays.copyOf(openedRight, words);
+            state.checkedStates = Arrays.copyOf(checked, words);
+            state.itemIds = null;
+            state.itemStates = null;
+        }
+    }
+
+    /**
+     * Replaces the states by the ones saved in state. With stable ids, the states are moved to the current
+     * positions of their items, now or when the adapter is set.
+     *
+     * @param state saved state
+     */
+    void restoreState(SwipeListView.SavedState state) {
+        Arrays.fill(opened, 0);
+        Arrays.fill(openedRight, 0);
+        Arrays.fill(checked, 0);
+        size = 0;
+        ensureCapacity(state.stateCount);
+        if (state.itemIds == null) {
+            System.arraycopy(state.openedStates, 0, opened, 0, state.openedStates.length);
+            System.arraycopy(state.openedRightStates, 0, openedRight, 0, state.openedRightStates.length);
+            System.arraycopy(state.checkedStates, 0, checked, 0, state.checkedStates.length);
+        }
+        size = state.stateCount;
+        checkedCount = countRange(checked, 0, size);
+        openedCount = 0;
+        for (int i = 0; i < opened.length; i++) {
+            for (long word = opened[i]; word != 0; word &= word - 1) {
+                addOpenedPosition((i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word));
+            }
+        }
+
+        idStates.clear();
+        if (state.itemIds != null) {
+            for (int i = 0; i < state.itemIds.length; i++) {
+                idStates.put(state.itemIds[i], state.itemStates[i]);
+            }
+            if (stableIdAdapter != null) {
+                remapStableIds(stableIdAdapter.getCount());
+            } else {
+                idStatesRestored = true;
+            }
+        }
+    }
+
+    /**
+     * Moves a row, shifting the rows between its old and new positions.
+     *
+     * @param from position of the row
+     * @param to   new position of the row
+     */
+    void move(int from, int to) {
+        if (from == to || from < 0 || from >= size || to < 0 || to >= size) {
+            return;
+        }
+        boolean wasOpened = get(opened, from);
+        boolean wasOpenedRight = get(openedRight, from);
+        boolean wasChecked = get(checked, from);
+        remove(from, 1);
+        insert(to, 1);
+        setOpened(to, wasOpened);
+        setOpenedRight(to, wasOpenedRight);
+        setChecked(to, wasChecked);
+    }
+
+    /**
+     * Removes several rows at once, shifting the following rows. Each bit is moved once, whatever the number
+     * of rows removed.
+     *
+     * @param removedPositions positions to remove, in any order, out of range and repeated positions are ignored
+     */
+    void removePositions(int[] removedPositions) {
+        // Keep the valid positions, in ascending order and without duplicates.
+        int[] positions = removedPositions.clone();
+        Arrays.sort(positions);
+        int count = 0;
+        for (int position : positions) {
+            if (position >= 0 && position < size && (count == 0 || position > positions[count - 1])) {
+                positions[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (get(checked, positions[i])) {
+                checkedCount--;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < openedCount; i++) {
+            int openedPosition = openedPositions[i];
+            int index = Arrays.binarySearch(positions, 0, count, openedPosition);
+            if (index < 0) {
+                // Shift by the number of removed positions before it.
+                openedPositions[kept++] = openedPosition - (-index - 1);
+            }
+        }
+        openedCount = kept;
+        compact(opened, positions, count, size);
+        compact(openedRight, positions, count, size);
+        compact(checked, positions, count, size);
+        size -= count;
+    }
+
+    private void ensureCapacity(int bits) {
+        int words = wordCount(bits);
+        if (words > opened.length) {
+            int newLength = Math.max(words, opened.length * 2);
+            opened = grow(opened, newLength);
+            openedRight = grow(openedRight, newLength);
+            checked = grow(checked, newLength);
+        }
+    }
+
+    private static long[] grow(long[] words, int newLength) {
+        long[] newWords = new long[newLength];
+        System.arraycopy(words, 0, newWords, 0, words.length);
+        return newWords;
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    private boolean get(long[] words, int position) {
+        return position >= 0 && position < size
+                && (words[position >>> ADDRESS_BITS_PER_WORD] & (1L << position)) != 0;
+    }
+
+    private void set(long[] words, int position, boolean value) {
+        if (position < 0 || position >= size) {
+            return;
+        }
+        if (value) {
+            words[position >>> ADDRESS_BITS_PER_WORD] |= 1L << position;
+        } else {
+            words[position >>> ADDRESS_BITS_PER_WORD] &= ~(1L << position);
+        }
+    }
+
+    /**
+     * Clears bits [from, to)
+     */
+    private static void clearRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int startWord = from >>> ADDRESS_BITS_PER_WORD;
+        int endWord = (to - 1) >>> ADDRESS_BITS_PER_WORD;
+        long firstMask = WORD_MASK << from;
+        long lastMask = WORD_MASK >>> -to;
+        if (startWord == endWord) {
+            words[startWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[startWord] &= ~firstMask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = 0;
+        }
+        words[endWord] &= ~lastMask;
+    }
+
+    /**
+     * Counts bits set in [from, to)
+     */
+    private static int countRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int startWord = from >>> ADDRESS_BITS_PER_WORD;
+        int endWord = (to - 1) >>> ADDRESS_BITS_PER_WORD;
+        long firstMask = WORD_MASK << from;
+        long lastMask = WORD_MASK >>> -to;
+        if (startWord == endWord) {
+            return Long.bitCount(words[startWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[startWord] & firstMask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[endWord] & lastMask);
+    }
+
+    /**
+     * Returns the 64 bits starting at bit index (bits over the array are read as 0).
+     */
+    private static long readWord(long[] words, int index) {
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        int offset = index & (BITS_PER_WORD - 1);
+        long low = wordIndex < words.length ? words[wordIndex] >>> offset : 0;
+        if (offset == 0) {
+            return low;
+        }
+        long high = wordIndex + 1 < words.length ? words[wordIndex + 1] << (BITS_PER_WORD - offset) : 0;
+        return low | high;
+    }
+
+    /**
+     * Writes the length (at most 64) low bits of value at bit index.
+     */
+    private static void writeBits(long[] words, int index, long value, int length) {
+        long mask = WORD_MASK >>> (BITS_PER_WORD - length);
+        value &= mask;
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        int offset = index & (BITS_PER_WORD - 1);
+        words[wordIndex] = (words[wordIndex] & ~(mask << offset)) | (value << offset);
+        if (offset + length > BITS_PER_WORD) {
+            int written = BITS_PER_WORD - offset;
+            words[wordIndex + 1] = (words[wordIndex + 1] & ~(mask >>> written)) | (value >>> written);
+        }
+    }
+
+    /**
+     * Removes the bits at the given ascending positions, moving each run of kept bits down in one pass.
+     */
+    private static void compact(long[] words, int[] positions, int count, int size) {
+        for (int i = 0; i < count; i++) {
+            int from = positions[i] + 1;
+            int to = i + 1 < count ? positions[i + 1] : size;
+            int dest = from - (i + 1);
+            while (from < to) {
+                int length = Math.min(BITS_PER_WORD, to - from);
+                writeBits(words, dest, readWord(words, from), length);
+                from += length;
+                dest += length;
+            }
+        }
+        clearRange(words, size - count, size);
+    }
+
+    /**
+     * Moves bits [position, size) to [position + count, size + count), and clears [position, position + count).
+     * Copies one word at a time, starting from the end.
+     */
+    private static void shiftUp(long[] words, int position, int count, int size) {
+        int newSize = size + count;
+        int lastWord = (newSize - 1) >>> ADDRESS_BITS_PER_WORD;
+        int firstWord = (position + count) >>> ADDRESS_BITS_PER_WORD;
+        for (int w = lastWord; w >= firstWord; w--) {
+            int dest = w << ADDRESS_BITS_PER_WORD;
+            long shifted = dest - count >= 0 ? readWord(words, dest - count) : readWord(words, 0) << (count - dest);
+            long keepMask = 0;
+            if (dest < position + count) {
+                // Lower bits of this word are below the inserted range: keep them untouched.
+                keepMask = WORD_MASK >>> -(position + count - dest);
+                if (position + count - dest >= BITS_PER_WORD) {
+                    keepMask = WORD_MASK;
+                }
+            }
+            words[w] = (words[w] & keepMask) | (shifted & ~keepMask);
+        }
+        clearRange(words, position, position + count);
+    }
+
+    /**
+     * Moves bits [position + count, size) to [position, size - count), and clears [size - count, size).
+     * Copies one word at a time, starting from position.
+     */
+    private static void shiftDown(long[] words, int position, int count, int size) {
+        int newSize = size - count;
+        int firstWord = position >>> ADDRESS_BITS_PER_WORD;
+        int lastWord = newSize == 0 ? -1 : (newSize - 1) >>> ADDRESS_BITS_PER_WORD;
+        for (int w = firstWord; w <= lastWord; w++) {
+            int dest = w << ADDRESS_BITS_PER_WORD;
+            long keepMask = 0;
+            long shifted;
+            if (dest < position) {
+                // Lower bits of this word are before the removed range: keep them untouched.
+                keepMask = WORD_MASK >>> -(position - dest);
+                shifted = readWord(words, position + count) << (position - dest);
+            } else {
+                shifted = readWord(words, dest + count);
+            }
+            words[w] = (words[w] & keepMask) | (shifted & ~keepMask);
+        }
+        clearRange(words, newSize, size);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 Vincent Brison.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vincentbrison.openlibraries.android.swipelistview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Trace sections of the SwipeListView in systrace, so its time can be told apart from the adapter in the
+ * ListView slices. Disabled by default, and always disabled below API 18.
+ */
+public final class SwipeTrace {
+
+    private static final boolean SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static boolean enabled;
+
+    private SwipeTrace() {
+    }
+
+    /**
+     * Enables the trace sections of all SwipeListView
+     *
+     * @param enabled true to trace, ignored below API 18
+     */
+    public static void setEnabled(boolean enabled) {
+        SwipeTrace.enabled = enabled && SUPPORTED;
+    }
+
+    /**
+     * @return true if the sections are traced
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Begins a section. End it with {@link #end()} on the same thread only if this returned true.
+     *
+     * @param name section name
+     * @return true if the section was begun
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static boolean begin(String name) {
+        if (enabled) {
+            Trace.beginSection(name);
+            return true;
+        }
+        return false;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static void end() {
+        Trace.endSection();
+    }
+}